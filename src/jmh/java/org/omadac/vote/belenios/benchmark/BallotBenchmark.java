@@ -0,0 +1,82 @@
+package org.omadac.vote.belenios.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.omadac.vote.belenios.algo.CreateBallot;
+import org.omadac.vote.belenios.algo.GenCredentials;
+import org.omadac.vote.belenios.algo.GenTrusteeKey;
+import org.omadac.vote.belenios.algo.Groups;
+import org.omadac.vote.belenios.algo.JsonMapper;
+import org.omadac.vote.belenios.algo.VerifyBallot;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Credentials;
+import org.omadac.vote.belenios.model.Election;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BallotBenchmark {
+
+    @Param({"1", "5"})
+    private int numQuestions;
+
+    @Param({"2", "10"})
+    private int numAnswers;
+
+    private Election election;
+
+    private Credentials credentials;
+
+    private List<List<Integer>> choices;
+
+    private Ballot ballot;
+
+    private String json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        election = BenchmarkElections.election(GenTrusteeKey.genKeyPair(Groups.HOMOMORPHIC), numQuestions,
+            numAnswers);
+        credentials = GenCredentials.generate(election.uuid(), Groups.HOMOMORPHIC);
+        choices = BenchmarkElections.choices(election, 0);
+        ballot = CreateBallot.createBallot(election, credentials, choices);
+        json = JsonMapper.INSTANCE.writeValueAsString(ballot);
+    }
+
+    @Benchmark
+    public Ballot createBallot() {
+        return CreateBallot.createBallot(election, credentials, choices);
+    }
+
+    @Benchmark
+    public boolean verifyBallot() {
+        return VerifyBallot.verifyBallot(ballot, election);
+    }
+
+    @Benchmark
+    public String serializeBallot() throws JsonProcessingException {
+        return JsonMapper.INSTANCE.writeValueAsString(ballot);
+    }
+
+    @Benchmark
+    public Ballot deserializeBallot() {
+        return JsonMapper.fromJson(json, Ballot.class);
+    }
+}
@@ -0,0 +1,67 @@
+package org.omadac.vote.belenios.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.omadac.vote.belenios.algo.Groups;
+import org.omadac.vote.belenios.algo.JsonMapper;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.Question;
+import org.omadac.vote.belenios.model.TrusteeKeyPair;
+import org.omadac.vote.belenios.model.WrappedPublicKey;
+
+/**
+ * Elections of configurable size, derived from the {@code election01} fixture.
+ */
+class BenchmarkElections {
+
+    /**
+     * @return the {@code election01} fixture with the public key of the given trustee and
+     *         {@code numQuestions} questions, each with {@code numAnswers} answers and exactly one
+     *         answer to choose
+     */
+    static Election election(TrusteeKeyPair keyPair, int numQuestions, int numAnswers) {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < numQuestions; i++) {
+            var question = Question.builder()
+                .question("Question " + (i + 1))
+                .blank(false)
+                .min(1)
+                .max(1);
+            for (int j = 0; j < numAnswers; j++) {
+                question.addAnswers("Answer " + (j + 1));
+            }
+            questions.add(question.build());
+        }
+        var publicKey = WrappedPublicKey.builder()
+            .group(Groups.HOMOMORPHIC)
+            .y(keyPair.trusteePublicKey().publicKey())
+            .build();
+        return election01().withPublicKey(publicKey).withQuestions(questions);
+    }
+
+    static Election election01() {
+        try (var in = BenchmarkElections.class.getResourceAsStream("/election01/election.json")) {
+            return JsonMapper.INSTANCE.readValue(in, Election.class);
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+    }
+
+    /**
+     * @return a plaintext ballot choosing answer {@code index % numAnswers} for every question
+     */
+    static List<List<Integer>> choices(Election election, int index) {
+        List<List<Integer>> choices = new ArrayList<>();
+        for (Question question: election.questions()) {
+            List<Integer> answer = new ArrayList<>();
+            for (int j = 0; j < question.answers().size(); j++) {
+                answer.add(j == index % question.answers().size() ? 1 : 0);
+            }
+            choices.add(answer);
+        }
+        return choices;
+    }
+}
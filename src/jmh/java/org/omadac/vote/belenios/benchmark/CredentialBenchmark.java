@@ -0,0 +1,32 @@
+package org.omadac.vote.belenios.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.omadac.vote.belenios.algo.GenCredentials;
+import org.omadac.vote.belenios.algo.Groups;
+import org.omadac.vote.belenios.model.Credentials;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CredentialBenchmark {
+
+    private String uuid = BenchmarkElections.election01().uuid();
+
+    @Benchmark
+    public Credentials generate() {
+        return GenCredentials.generate(uuid, Groups.HOMOMORPHIC);
+    }
+}
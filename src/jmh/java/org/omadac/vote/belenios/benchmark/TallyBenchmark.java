@@ -0,0 +1,105 @@
+package org.omadac.vote.belenios.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.omadac.vote.belenios.algo.CreateBallot;
+import org.omadac.vote.belenios.algo.CreateElectionResult;
+import org.omadac.vote.belenios.algo.CreateEncryptedTally;
+import org.omadac.vote.belenios.algo.CreatePartialDecryption;
+import org.omadac.vote.belenios.algo.GenCredentials;
+import org.omadac.vote.belenios.algo.GenTrusteeKey;
+import org.omadac.vote.belenios.algo.Groups;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Ciphertext;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.PartialDecryption;
+import org.omadac.vote.belenios.model.Result;
+import org.omadac.vote.belenios.model.TrusteeKeyPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tallying and decryption of a ballot box.
+ * <p>
+ * Creating ballots is expensive, so the ballot box repeats a small number of distinct ballots. The
+ * tally does not verify proofs, so its cost does not depend on the ballots being distinct.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TallyBenchmark {
+
+    private static final int DISTINCT_BALLOTS = 10;
+
+    @Param({"1", "5"})
+    private int numQuestions;
+
+    @Param({"2", "10"})
+    private int numAnswers;
+
+    @Param({"100", "10000"})
+    private int numBallots;
+
+    private Election election;
+
+    private TrusteeKeyPair keyPair;
+
+    private List<Ballot> ballots;
+
+    private List<List<Ciphertext>> encryptedTally;
+
+    private PartialDecryption partialDecryption;
+
+    @Setup
+    public void setUp() {
+        keyPair = GenTrusteeKey.genKeyPair(Groups.HOMOMORPHIC);
+        election = BenchmarkElections.election(keyPair, numQuestions, numAnswers);
+
+        List<Ballot> distinct = new ArrayList<>();
+        for (int i = 0; i < Math.min(numBallots, DISTINCT_BALLOTS); i++) {
+            var credentials = GenCredentials.generate(election.uuid(), Groups.HOMOMORPHIC);
+            distinct.add(CreateBallot.createBallot(election, credentials, BenchmarkElections.choices(election, i)));
+        }
+        ballots = new ArrayList<>();
+        for (int i = 0; i < numBallots; i++) {
+            ballots.add(distinct.get(i % distinct.size()));
+        }
+
+        encryptedTally = CreateEncryptedTally.tally(election, ballots.stream());
+        partialDecryption = CreatePartialDecryption.decrypt(election, keyPair, encryptedTally);
+    }
+
+    @Benchmark
+    public List<List<Ciphertext>> tally() {
+        return CreateEncryptedTally.tally(election, ballots.stream());
+    }
+
+    @Benchmark
+    public PartialDecryption decrypt() {
+        return CreatePartialDecryption.decrypt(election, keyPair, encryptedTally);
+    }
+
+    @Benchmark
+    public boolean verifyDecryption() {
+        return CreatePartialDecryption.verify(election, keyPair, encryptedTally, partialDecryption);
+    }
+
+    @Benchmark
+    public Result createResult() {
+        return CreateElectionResult.createResult(election, numBallots, encryptedTally, List.of(partialDecryption));
+    }
+}
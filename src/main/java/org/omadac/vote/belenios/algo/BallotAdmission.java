@@ -0,0 +1,148 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.omadac.vote.belenios.model.Ballot;
+
+/**
+ * Admits ballots of an election in stages, ordered from the cheapest to the most expensive check.
+ * <p>
+ * The structure, election, range, credential and duplicate stages only compare sizes, strings and
+ * numbers, so that malformed, foreign and replayed ballots are rejected in microseconds, before any
+ * exponentiation. {@link #screen(Ballot)} runs these stages on the calling thread, and only ballots
+ * passing them should be queued for {@link #verify(Ballot, int)}, which runs the subgroup stage,
+ * with one exponentiation per group element, and the proof stage on a worker thread. Each stage
+ * counts its rejections in {@link Metrics}.
+ * <p>
+ * A ballot is a duplicate if a ballot with the same signature challenge has passed the screening
+ * before. The challenge is a hash of all ciphertexts of the ballot, so a replayed ballot cannot be
+ * stored as a revote which supersedes a newer ballot of the same voter.
+ */
+public class BallotAdmission {
+
+    public enum Stage {
+
+        STRUCTURE(Metrics.REJECTED_STRUCTURE),
+
+        ELECTION(Metrics.REJECTED_ELECTION),
+
+        RANGE(Metrics.REJECTED_RANGE),
+
+        CREDENTIAL(Metrics.REJECTED_CREDENTIAL),
+
+        DUPLICATE(Metrics.REJECTED_DUPLICATE),
+
+        SUBGROUP(Metrics.REJECTED_SUBGROUP),
+
+        PROOFS(Metrics.REJECTED_PROOFS);
+
+        private final Metrics.Counter rejected;
+
+        Stage(Metrics.Counter rejected) {
+            this.rejected = rejected;
+        }
+
+        /**
+         * @return the number of ballots rejected by this stage
+         */
+        public Metrics.Counter rejected() {
+            return rejected;
+        }
+    }
+
+    private final ElectionContext context;
+
+    private final Predicate<BigInteger> knownCredentials;
+
+    private final Set<BigInteger> challenges = ConcurrentHashMap.newKeySet();
+
+    public BallotAdmission(ElectionContext context, Predicate<BigInteger> knownCredentials) {
+        this.context = context;
+        this.knownCredentials = knownCredentials;
+    }
+
+    public ElectionContext context() {
+        return context;
+    }
+
+    /**
+     * Runs all stages up to the duplicate stage. A ballot passing them is recorded for the duplicate
+     * stage.
+     *
+     * @return the reason for rejecting the ballot, or null if the ballot may be verified
+     */
+    public String screen(Ballot ballot) {
+        var reason = VerifyBallot.checkStructure(ballot, context);
+        if (reason != null) {
+            return reject(Stage.STRUCTURE, reason);
+        }
+        reason = VerifyBallot.checkElection(ballot, context);
+        if (reason != null) {
+            return reject(Stage.ELECTION, reason);
+        }
+        reason = VerifyBallot.checkRange(ballot, context);
+        if (reason != null) {
+            return reject(Stage.RANGE, reason);
+        }
+        if (!knownCredentials.test(ballot.signature().publicKey())) {
+            return reject(Stage.CREDENTIAL, "unknown credential");
+        }
+        if (!challenges.add(ballot.signature().challenge())) {
+            return reject(Stage.DUPLICATE, "duplicate ballot");
+        }
+        return null;
+    }
+
+    /**
+     * Runs the subgroup and proof stages on a screened ballot. A rejected ballot is
+     * {@link #forget(Ballot) forgotten}.
+     *
+     * @param ordinal
+     *            position of the ballot, for diagnostics only, or -1
+     * @return the reason for rejecting the ballot, or null if the ballot is valid
+     */
+    public String verify(Ballot ballot, int ordinal) {
+        var reason = VerifyBallot.checkSubgroup(ballot, context);
+        if (reason != null) {
+            forget(ballot);
+            return reject(Stage.SUBGROUP, reason);
+        }
+        if (VerifyBallot.verifyProofs(ballot, context, ordinal)) {
+            return null;
+        }
+        forget(ballot);
+        return reject(Stage.PROOFS, "invalid proof or signature");
+    }
+
+    /**
+     * Runs all stages on the calling thread.
+     *
+     * @return the reason for rejecting the ballot, or null if the ballot is admitted
+     */
+    public String admit(Ballot ballot, int ordinal) {
+        var reason = screen(ballot);
+        return reason != null ? reason : verify(ballot, ordinal);
+    }
+
+    /**
+     * Records a ballot admitted earlier, e.g. when reopening a ballot box, without any checks.
+     */
+    public void record(Ballot ballot) {
+        challenges.add(ballot.signature().challenge());
+    }
+
+    /**
+     * Forgets a screened ballot which was not admitted after all, so that it can be submitted again.
+     */
+    public void forget(Ballot ballot) {
+        challenges.remove(ballot.signature().challenge());
+    }
+
+    static String reject(Stage stage, String reason) {
+        stage.rejected().increment();
+        return reason;
+    }
+}
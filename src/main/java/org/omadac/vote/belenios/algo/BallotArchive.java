@@ -0,0 +1,268 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.omadac.vote.belenios.model.Ballot;
+
+/**
+ * Random access to the ballots of a binary ballot file by ordinal or by public credential.
+ * <p>
+ * The ballot file is memory-mapped in segments of at most 1 GiB. Consecutive segments overlap by
+ * the length of the longest record, so every record lies completely within the segment containing
+ * its start. A side index file, with the suffix {@code .idx}, is memory-mapped as well and contains
+ * <ul>
+ * <li>the offset of each record, by ordinal,</li>
+ * <li>an open addressing table from the {@link Fingerprint} of the public credential to the
+ * ordinal.</li>
+ * </ul>
+ * A lookup reads a fixed number of index entries and returns a read-only slice of the mapped ballot
+ * file, without copying the record. The index is rebuilt when it is missing or when the size of the
+ * ballot file has changed.
+ */
+public class BallotArchive implements Closeable {
+
+    static final String INDEX_SUFFIX = ".idx";
+
+    private static final byte[] INDEX_MAGIC = "BLNI".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int INDEX_VERSION = 1;
+
+    private static final int INDEX_HEADER_SIZE = 32;
+
+    private static final int EMPTY = -1;
+
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel dataChannel;
+
+    private final BinaryBallotHeader header;
+
+    private final int segmentSize;
+
+    private final MappedByteBuffer[] segments;
+
+    private final MappedByteBuffer index;
+
+    private final int numBallots;
+
+    private final int capacity;
+
+    private final int keysOffset;
+
+    private final int ordinalsOffset;
+
+    private BallotArchive(Path ballotsFile, int segmentSize) throws IOException {
+        this.segmentSize = segmentSize;
+        var indexFile = indexFile(ballotsFile);
+        if (!isIndexCurrent(ballotsFile, indexFile)) {
+            createIndex(ballotsFile);
+        }
+        try (var in = new BinaryBallotReader(Files.newInputStream(ballotsFile))) {
+            this.header = in.header();
+        }
+        try (var indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (indexChannel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Ballot index too large: " + indexFile);
+            }
+            this.index = indexChannel.map(MapMode.READ_ONLY, 0, indexChannel.size());
+        }
+        this.numBallots = index.getInt(16);
+        int maxRecordLength = index.getInt(20);
+        this.capacity = index.getInt(24);
+        this.keysOffset = INDEX_HEADER_SIZE + Long.BYTES * numBallots;
+        this.ordinalsOffset = keysOffset + Long.BYTES * capacity;
+
+        this.dataChannel = FileChannel.open(ballotsFile, StandardOpenOption.READ);
+        long size = dataChannel.size();
+        int numSegments = (int) ((size + segmentSize - 1) / segmentSize);
+        this.segments = new MappedByteBuffer[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            long start = (long) i * segmentSize;
+            long length = Math.min((long) segmentSize + Integer.BYTES + maxRecordLength, size - start);
+            segments[i] = dataChannel.map(MapMode.READ_ONLY, start, length);
+        }
+    }
+
+    /**
+     * Opens a binary ballot file, creating or updating its index if needed.
+     */
+    public static BallotArchive open(Path ballotsFile) throws IOException {
+        return new BallotArchive(ballotsFile, SEGMENT_SIZE);
+    }
+
+    static BallotArchive open(Path ballotsFile, int segmentSize) throws IOException {
+        return new BallotArchive(ballotsFile, segmentSize);
+    }
+
+    static Path indexFile(Path ballotsFile) {
+        return ballotsFile.resolveSibling(ballotsFile.getFileName() + INDEX_SUFFIX);
+    }
+
+    private static boolean isIndexCurrent(Path ballotsFile, Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+        try (var in = new DataInputStream(Files.newInputStream(indexFile))) {
+            var magic = new byte[INDEX_MAGIC.length];
+            in.readFully(magic);
+            int version = in.readInt();
+            long dataSize = in.readLong();
+            return Arrays.equals(magic, INDEX_MAGIC) && version == INDEX_VERSION
+                && dataSize == Files.size(ballotsFile);
+        } catch (EOFException exc) {
+            return false;
+        }
+    }
+
+    /**
+     * Scans a binary ballot file and writes its index, replacing an existing index atomically.
+     *
+     * @return number of ballots
+     */
+    public static int createIndex(Path ballotsFile) throws IOException {
+        long dataSize = Files.size(ballotsFile);
+        long[] offsets = new long[1024];
+        long[] keys = new long[1024];
+        int numBallots = 0;
+        int maxRecordLength = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(ballotsFile), 1 << 16))) {
+            var header = BinaryBallotHeader.read(in);
+            var decoder = new BinaryBallotRecord(header);
+            var record = new byte[1 << 16];
+            long position = header.length();
+            while (position < dataSize) {
+                int length = in.readInt();
+                if (length < 0 || position + Integer.BYTES + length > dataSize) {
+                    throw new IllegalArgumentException("Truncated ballot record at offset " + position);
+                }
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                in.readFully(record, 0, length);
+                if (numBallots == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, 2 * numBallots);
+                    keys = Arrays.copyOf(keys, 2 * numBallots);
+                }
+                offsets[numBallots] = position;
+                keys[numBallots] = Fingerprint.of(decoder.publicCredential(ByteBuffer.wrap(record, 0, length)));
+                numBallots++;
+                maxRecordLength = Math.max(maxRecordLength, length);
+                position += Integer.BYTES + length;
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2 * numBallots - 1, 1)) << 1;
+        int mask = capacity - 1;
+        long[] tableKeys = new long[capacity];
+        int[] tableOrdinals = new int[capacity];
+        Arrays.fill(tableOrdinals, EMPTY);
+        for (int i = 0; i < numBallots; i++) {
+            int slot = (int) keys[i] & mask;
+            while (tableOrdinals[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            tableKeys[slot] = keys[i];
+            tableOrdinals[slot] = i;
+        }
+
+        var indexFile = indexFile(ballotsFile);
+        var tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+            out.write(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(dataSize);
+            out.writeInt(numBallots);
+            out.writeInt(maxRecordLength);
+            out.writeInt(capacity);
+            out.writeInt(0);
+            for (int i = 0; i < numBallots; i++) {
+                out.writeLong(offsets[i]);
+            }
+            for (long key: tableKeys) {
+                out.writeLong(key);
+            }
+            for (int ordinal: tableOrdinals) {
+                out.writeInt(ordinal);
+            }
+        }
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return numBallots;
+    }
+
+    public BinaryBallotHeader header() {
+        return header;
+    }
+
+    public int numBallots() {
+        return numBallots;
+    }
+
+    /**
+     * @return a read-only slice of the mapped file with the body of the given record
+     */
+    public ByteBuffer record(int ordinal) {
+        if (ordinal < 0 || ordinal >= numBallots) {
+            throw new IndexOutOfBoundsException("No ballot with ordinal " + ordinal);
+        }
+        long offset = index.getLong(INDEX_HEADER_SIZE + Long.BYTES * ordinal);
+        var segment = segments[(int) (offset / segmentSize)];
+        int start = (int) (offset % segmentSize);
+        int length = segment.getInt(start);
+        var record = segment.duplicate();
+        record.position(start + Integer.BYTES).limit(start + Integer.BYTES + length);
+        return record.slice().asReadOnlyBuffer();
+    }
+
+    public Ballot ballot(int ordinal) {
+        return new BinaryBallotRecord(header).ballot(record(ordinal));
+    }
+
+    public BigInteger publicCredential(int ordinal) {
+        return new BinaryBallotRecord(header).publicCredential(record(ordinal));
+    }
+
+    /**
+     * @return the ordinals of all ballots with the given public credential, in file order
+     */
+    public int[] ordinals(BigInteger publicCred) {
+        long key = Fingerprint.of(publicCred);
+        int mask = capacity - 1;
+        var decoder = new BinaryBallotRecord(header);
+        List<Integer> matches = new ArrayList<>();
+        for (int slot = (int) key & mask;; slot = (slot + 1) & mask) {
+            int ordinal = index.getInt(ordinalsOffset + Integer.BYTES * slot);
+            if (ordinal == EMPTY) {
+                break;
+            }
+            if (index.getLong(keysOffset + Long.BYTES * slot) == key
+                && decoder.publicCredential(record(ordinal)).equals(publicCred)) {
+                matches.add(ordinal);
+            }
+        }
+        return matches.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        dataChannel.close();
+    }
+}
@@ -0,0 +1,330 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.BallotReceipt;
+import org.omadac.vote.belenios.model.Election;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Accepts ballots for a single election, verifies them on a bounded worker pool and appends the
+ * accepted ballots to a JSON ballots file, one per line.
+ * <p>
+ * {@link #submit(String)} never blocks. It parses the ballot and runs the cheap stages of a
+ * {@link BallotAdmission} on the calling thread, so that malformed, foreign and replayed ballots
+ * never take a place in the queue of the verification workers. When all workers are busy and the
+ * queue of waiting ballots is full, the ballot is refused with a {@link RejectedExecutionException},
+ * so that clients can retry later instead of piling up requests. Accepted ballots are appended by a single writer
+ * thread, which writes and syncs all ballots accepted in the meantime at once, and each receipt is
+ * only issued after its ballot is on disk.
+ * <p>
+ * The ordinal of a ballot is its position in the file, and a ballot with a known credential is
+ * reported as a revote. An incomplete last line left by a crash is truncated when the ballot box is
+ * opened.
+ */
+public class BallotBox implements AutoCloseable {
+
+    private static final int MAX_BATCH = 1024;
+
+    private static final Pending END = new Pending(null, null, null);
+
+    private final BallotAdmission admission;
+
+    private final ObjectReader ballotReader = JsonMapper.INSTANCE.readerFor(Ballot.class);
+
+    private final ThreadPoolExecutor verifiers;
+
+    private final BlockingQueue<Pending> accepted = new LinkedBlockingQueue<>();
+
+    private final Thread writer;
+
+    private final FileChannel channel;
+
+    private final RevoteIndex revotes;
+
+    private volatile int numBallots;
+
+    private volatile boolean closed;
+
+    private IOException failure;
+
+    /**
+     * @param electionHash
+     *            the hash which ballots must contain, the SHA-256 of election.json as published
+     */
+    public BallotBox(Election election, String electionHash, Predicate<BigInteger> knownCredentials,
+        Path ballotsFile, int threads, int capacity) throws IOException {
+        this(ElectionContext.of(election, electionHash), knownCredentials, ballotsFile, threads, capacity);
+    }
+
+    /**
+     * @param context
+     *            the election, with the hash which ballots must contain
+     * @param knownCredentials
+     *            ballots with other credentials are rejected
+     * @param threads
+     *            number of verification threads
+     * @param capacity
+     *            maximum number of ballots waiting for a verification thread
+     */
+    public BallotBox(ElectionContext context, Predicate<BigInteger> knownCredentials, Path ballotsFile,
+        int threads, int capacity) throws IOException {
+        if (Files.exists(ballotsFile) && BallotFiles.isBinary(ballotsFile)) {
+            throw new IllegalArgumentException("Ballots file " + ballotsFile + " is not in JSON format");
+        }
+        this.admission = new BallotAdmission(context, knownCredentials);
+
+        this.channel = FileChannel.open(ballotsFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            channel.truncate(completeLength(channel));
+            channel.position(channel.size());
+            this.revotes = channel.size() == 0 ? new RevoteIndex() : RevoteIndex.build(ballotsFile);
+            this.numBallots = revotes.numBallots();
+            if (numBallots > 0) {
+                try (var stored = BallotFiles.readBallots(ballotsFile)) {
+                    stored.forEach(admission::record);
+                }
+            }
+        } catch (IOException | RuntimeException exc) {
+            channel.close();
+            throw exc;
+        }
+
+        this.verifiers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacity), new ThreadPoolExecutor.AbortPolicy());
+        this.writer = new Thread(this::writeBallots, "ballot-box-writer");
+        writer.start();
+    }
+
+    /**
+     * @return the length of the file up to and including the last line break
+     */
+    private static long completeLength(FileChannel channel) throws IOException {
+        var buffer = ByteBuffer.allocate(1 << 12);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                channel.read(buffer, start + buffer.position());
+            }
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Queues a ballot for verification.
+     *
+     * @param json
+     *            the ballot in JSON format, on a single line
+     * @return the receipt, or an {@link IllegalArgumentException} with the reason for rejecting the
+     *         ballot, or an {@link UncheckedIOException} if the ballot could not be stored
+     * @throws RejectedExecutionException
+     *             if the queue is full or the ballot box is closed
+     */
+    public CompletableFuture<BallotReceipt> submit(String json) {
+        if (closed) {
+            throw new RejectedExecutionException("Ballot box is closed");
+        }
+        var result = new CompletableFuture<BallotReceipt>();
+        var line = json.strip();
+        Ballot ballot;
+        try {
+            ballot = screen(line);
+        } catch (IllegalArgumentException exc) {
+            result.completeExceptionally(exc);
+            return result;
+        } catch (RuntimeException exc) {
+            result.completeExceptionally(new IllegalArgumentException("malformed ballot: " + exc, exc));
+            return result;
+        }
+        try {
+            verifiers.execute(() -> verify(ballot, line, result));
+        } catch (RejectedExecutionException exc) {
+            admission.forget(ballot);
+            throw exc;
+        }
+        return result;
+    }
+
+    private Ballot screen(String line) {
+        if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException(
+                BallotAdmission.reject(BallotAdmission.Stage.STRUCTURE, "ballot must be on a single line"));
+        }
+        Metrics.BYTES_PARSED.add(line.length());
+        Ballot ballot;
+        try {
+            ballot = ballotReader.readValue(line);
+        } catch (JsonProcessingException exc) {
+            throw new IllegalArgumentException(BallotAdmission.reject(BallotAdmission.Stage.STRUCTURE,
+                "malformed ballot: " + exc.getOriginalMessage()));
+        }
+        var reason = admission.screen(ballot);
+        if (reason != null) {
+            throw new IllegalArgumentException(reason);
+        }
+        return ballot;
+    }
+
+    private void verify(Ballot ballot, String line, CompletableFuture<BallotReceipt> result) {
+        try {
+            var reason = admission.verify(ballot, -1);
+            if (reason != null) {
+                throw new IllegalArgumentException(reason);
+            }
+            accepted.add(new Pending(ballot, line.getBytes(UTF_8), result));
+        } catch (IllegalArgumentException exc) {
+            result.completeExceptionally(exc);
+        } catch (RuntimeException exc) {
+            admission.forget(ballot);
+            result.completeExceptionally(new IllegalArgumentException("malformed ballot: " + exc, exc));
+        }
+    }
+
+    private void writeBallots() {
+        List<Pending> batch = new ArrayList<>();
+        var buffer = ByteBuffer.allocate(1 << 16);
+        while (true) {
+            batch.clear();
+            try {
+                batch.add(accepted.take());
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            accepted.drainTo(batch, MAX_BATCH - 1);
+            boolean end = batch.remove(END);
+
+            List<BallotReceipt> receipts = new ArrayList<>(batch.size());
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                buffer.clear();
+                Set<BigInteger> batchCreds = new HashSet<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    var pending = batch.get(i);
+                    var publicCred = pending.ballot.signature().publicKey();
+                    boolean revote = !batchCreds.add(publicCred) || revotes.ordinal(publicCred) >= 0;
+                    receipts.add(BallotReceipt.builder()
+                        .tracker(Base64.getEncoder().withoutPadding()
+                            .encodeToString(ModularChecksum.sha256().digest(pending.line)))
+                        .ordinal(revotes.numBallots() + i)
+                        .revote(revote)
+                        .build());
+                    buffer = append(buffer, pending.line);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                for (Pending pending: batch) {
+                    revotes.put(pending.ballot.signature().publicKey(), revotes.numBallots());
+                }
+                numBallots = revotes.numBallots();
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result.complete(receipts.get(i));
+                }
+            } catch (IOException exc) {
+                failure = exc;
+                for (Pending pending: batch) {
+                    admission.forget(pending.ballot);
+                    pending.result.completeExceptionally(new UncheckedIOException(exc));
+                }
+            }
+            if (end) {
+                return;
+            }
+        }
+    }
+
+    private static ByteBuffer append(ByteBuffer buffer, byte[] line) {
+        if (buffer.remaining() < line.length + 1) {
+            var larger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + line.length + 1));
+            buffer = larger.put(buffer.flip());
+        }
+        return buffer.put(line).put((byte) '\n');
+    }
+
+    /**
+     * @return the number of ballots stored, including the ones in the file when it was opened
+     */
+    public int numBallots() {
+        return numBallots;
+    }
+
+    /**
+     * @return the number of ballots waiting for a verification thread
+     */
+    public int queued() {
+        return verifiers.getQueue().size();
+    }
+
+    /**
+     * Stops accepting ballots, finishes all submitted ballots and closes the ballots file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        verifiers.shutdown();
+        try {
+            verifiers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            accepted.add(END);
+            writer.join();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static class Pending {
+
+        private final Ballot ballot;
+        private final byte[] line;
+        private final CompletableFuture<BallotReceipt> result;
+
+        Pending(Ballot ballot, byte[] line, CompletableFuture<BallotReceipt> result) {
+            this.ballot = ballot;
+            this.line = line;
+            this.result = result;
+        }
+    }
+}
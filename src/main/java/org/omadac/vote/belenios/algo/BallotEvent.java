@@ -0,0 +1,45 @@
+package org.omadac.vote.belenios.algo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for creating or verifying a ballot.
+ */
+@Name("belenios.Ballot")
+@Label("Ballot")
+@Category("Belenios")
+@Description("Creation or verification of a ballot with all its proofs")
+class BallotEvent extends Event {
+
+    @Label("Operation")
+    @Description("create or verify")
+    String operation;
+
+    @Label("Ballot")
+    @Description("Ordinal of the ballot, or -1")
+    int ballot;
+
+    @Label("Valid")
+    boolean valid;
+
+    static BallotEvent start(String operation, int ballot) {
+        var event = new BallotEvent();
+        event.operation = operation;
+        event.ballot = ballot;
+        event.begin();
+        return event;
+    }
+
+    boolean finish(boolean valid) {
+        end();
+        if (shouldCommit()) {
+            this.valid = valid;
+            commit();
+        }
+        return valid;
+    }
+}
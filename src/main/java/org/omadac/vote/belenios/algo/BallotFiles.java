@@ -0,0 +1,128 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Election;
+
+/**
+ * Reads ballot files in JSON format (one ballot per line, like {@code ballots.jsons}) or in the
+ * binary format of {@link BinaryBallotWriter}, and converts between both formats. The format of a
+ * file is detected from its first bytes.
+ */
+public class BallotFiles {
+
+    public static boolean isBinary(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return BinaryBallotReader.isBinary(in);
+        }
+    }
+
+    /**
+     * Reads all ballots from a file in either format. The returned stream must be closed.
+     */
+    public static Stream<Ballot> readBallots(Path file) throws IOException {
+        if (!isBinary(file)) {
+            return Files.lines(file, UTF_8).map(line -> {
+                Metrics.BYTES_PARSED.add(line.length() + 1);
+                return JsonMapper.fromJson(line, Ballot.class);
+            });
+        }
+        var reader = new BinaryBallotReader(Files.newInputStream(file));
+        var iterator = new Iterator<Ballot>() {
+
+            private Ballot next = readNext();
+
+            private Ballot readNext() {
+                try {
+                    return reader.read();
+                } catch (IOException exc) {
+                    throw new UncheckedIOException(exc);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Ballot next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                var ballot = next;
+                next = readNext();
+                return ballot;
+            }
+        };
+        return StreamSupport
+            .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException exc) {
+                    throw new UncheckedIOException(exc);
+                }
+            });
+    }
+
+    /**
+     * Converts a JSON ballot file to the binary format. The election hash of the header is taken from
+     * the first ballot, and all ballots must have the same election uuid and hash.
+     *
+     * @return number of ballots
+     */
+    public static int toBinary(Election election, Path jsonFile, Path binaryFile) throws IOException {
+        try (var lines = Files.lines(jsonFile, UTF_8);
+            var out = new BufferedOutputStream(Files.newOutputStream(binaryFile))) {
+            var ballots = lines.filter(line -> !line.isBlank())
+                .map(line -> JsonMapper.fromJson(line, Ballot.class))
+                .iterator();
+            Ballot first = ballots.hasNext() ? ballots.next() : null;
+            var electionHash = first == null ? CreateBallot.createElectionHash(election) : first.electionHash();
+            var header = new BinaryBallotHeader(election.publicKey().group(), election.uuid(), electionHash);
+            try (var writer = new BinaryBallotWriter(out, header)) {
+                if (first != null) {
+                    writer.write(first);
+                }
+                while (ballots.hasNext()) {
+                    writer.write(ballots.next());
+                }
+                return writer.numBallots();
+            }
+        }
+    }
+
+    /**
+     * Converts a binary ballot file to JSON, writing one ballot per line.
+     *
+     * @return number of ballots
+     */
+    public static int toJson(Path binaryFile, Path jsonFile) throws IOException {
+        try (var reader = new BinaryBallotReader(Files.newInputStream(binaryFile));
+            var out = Files.newBufferedWriter(jsonFile, UTF_8)) {
+            int numBallots = 0;
+            for (var ballot = reader.read(); ballot != null; ballot = reader.read()) {
+                out.write(JsonMapper.INSTANCE.writeValueAsString(ballot));
+                out.write('\n');
+                numBallots++;
+            }
+            return numBallots;
+        }
+    }
+}
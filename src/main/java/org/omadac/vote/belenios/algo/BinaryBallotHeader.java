@@ -0,0 +1,100 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.omadac.vote.belenios.model.Group;
+
+/**
+ * Header of a binary ballot file.
+ * <p>
+ * The header consists of the magic bytes {@code BLNB}, a format version byte, the widths in bytes of
+ * group elements and of exponents, and the election uuid and hash shared by all ballots in the file.
+ * All numbers are big-endian. The header is followed by one record per ballot, see
+ * {@link BinaryBallotWriter}.
+ */
+public class BinaryBallotHeader {
+
+    static final byte[] MAGIC = "BLNB".getBytes(StandardCharsets.US_ASCII);
+
+    static final int VERSION = 1;
+
+    private final int elementSize;
+
+    private final int exponentSize;
+
+    private final String electionUuid;
+
+    private final String electionHash;
+
+    public BinaryBallotHeader(int elementSize, int exponentSize, String electionUuid, String electionHash) {
+        this.elementSize = elementSize;
+        this.exponentSize = exponentSize;
+        this.electionUuid = electionUuid;
+        this.electionHash = electionHash;
+    }
+
+    public BinaryBallotHeader(Group group, String electionUuid, String electionHash) {
+        this(byteLength(group.p().bitLength()), byteLength(group.q().bitLength()), electionUuid, electionHash);
+    }
+
+    private static int byteLength(int bitLength) {
+        return (bitLength + 7) / 8;
+    }
+
+    public int elementSize() {
+        return elementSize;
+    }
+
+    public int exponentSize() {
+        return exponentSize;
+    }
+
+    public String electionUuid() {
+        return electionUuid;
+    }
+
+    public String electionHash() {
+        return electionHash;
+    }
+
+    /**
+     * @return the number of bytes of the serialized header
+     */
+    public int length() {
+        return MAGIC.length + 1 + 2 + 2 + utfLength(electionUuid) + utfLength(electionHash);
+    }
+
+    private static int utfLength(String text) {
+        return 2 + text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeShort(elementSize);
+        out.writeShort(exponentSize);
+        out.writeUTF(electionUuid);
+        out.writeUTF(electionHash);
+    }
+
+    static BinaryBallotHeader read(DataInput in) throws IOException {
+        var magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Not a binary ballot file");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary ballot format version " + version);
+        }
+        int elementSize = in.readUnsignedShort();
+        int exponentSize = in.readUnsignedShort();
+        var electionUuid = in.readUTF();
+        var electionHash = in.readUTF();
+        return new BinaryBallotHeader(elementSize, exponentSize, electionUuid, electionHash);
+    }
+}
@@ -0,0 +1,137 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.omadac.vote.belenios.model.Ballot;
+
+/**
+ * Reads ballots written by {@link BinaryBallotWriter}.
+ * <p>
+ * Each record is read into a reusable buffer with a single bulk read and decoded by
+ * {@link BinaryBallotRecord}. {@link #parse(StreamingBallotParser.Handler)} only decodes the
+ * ciphertexts and the public credential and skips the proofs.
+ */
+public class BinaryBallotReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BinaryBallotHeader header;
+
+    private final DataInputStream in;
+
+    private final BinaryBallotRecord decoder;
+
+    private final List<BigInteger> alphas = new ArrayList<>();
+
+    private final List<BigInteger> betas = new ArrayList<>();
+
+    private byte[] record = new byte[BUFFER_SIZE];
+
+    private int recordLength;
+
+    /**
+     * Reads the header and prepares to read the records following it.
+     */
+    public BinaryBallotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        this.header = BinaryBallotHeader.read(this.in);
+        this.decoder = new BinaryBallotRecord(header);
+    }
+
+    /**
+     * Reads records from a stream positioned after the header, or at any record boundary.
+     */
+    public BinaryBallotReader(InputStream in, BinaryBallotHeader header) {
+        this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        this.header = header;
+        this.decoder = new BinaryBallotRecord(header);
+    }
+
+    /**
+     * Checks the magic bytes at the current position of the stream and resets the stream.
+     *
+     * @param in
+     *            a stream supporting {@link InputStream#mark(int)}
+     */
+    public static boolean isBinary(InputStream in) throws IOException {
+        var magic = BinaryBallotHeader.MAGIC;
+        in.mark(magic.length);
+        try {
+            for (byte b: magic) {
+                if (in.read() != (b & 0xFF)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            in.reset();
+        }
+    }
+
+    public BinaryBallotHeader header() {
+        return header;
+    }
+
+    /**
+     * @return the next ballot, or null at the end of the stream
+     */
+    public Ballot read() throws IOException {
+        if (!nextRecord()) {
+            return null;
+        }
+        return decoder.ballot(ByteBuffer.wrap(record, 0, recordLength));
+    }
+
+    /**
+     * Passes the ciphertexts and the public credential of each remaining ballot to the handler.
+     *
+     * @return number of ballots
+     */
+    public int parse(StreamingBallotParser.Handler handler) throws IOException {
+        int numBallots = 0;
+        while (nextRecord()) {
+            alphas.clear();
+            betas.clear();
+            var publicCred = decoder.choices(ByteBuffer.wrap(record, 0, recordLength), alphas, betas);
+            handler.ballot(publicCred, alphas, betas);
+            numBallots++;
+        }
+        return numBallots;
+    }
+
+    private boolean nextRecord() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        int length;
+        try {
+            length = (first << 24) | (in.readUnsignedByte() << 16) | in.readUnsignedShort();
+        } catch (EOFException exc) {
+            throw new IllegalArgumentException("Truncated ballot record", exc);
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid record length " + length);
+        }
+        if (record.length < length) {
+            record = new byte[length];
+        }
+        in.readFully(record, 0, length);
+        recordLength = length;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,163 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.omadac.vote.belenios.model.Answer;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Ciphertext;
+import org.omadac.vote.belenios.model.Proof;
+import org.omadac.vote.belenios.model.Signature;
+
+/**
+ * Decodes the body of a binary ballot record, without the length prefix, from a byte buffer. The
+ * buffer may be a slice of a memory-mapped file. The position of the buffer is not modified.
+ */
+class BinaryBallotRecord {
+
+    private final BinaryBallotHeader header;
+
+    private final byte[] scratch;
+
+    private ByteBuffer record;
+
+    private ByteBuffer view;
+
+    private int position;
+
+    BinaryBallotRecord(BinaryBallotHeader header) {
+        this.header = header;
+        this.scratch = new byte[Math.max(header.elementSize(), header.exponentSize())];
+    }
+
+    /**
+     * @return the number of bytes at the end of a record holding the signature
+     */
+    int signatureLength() {
+        return header.elementSize() + 2 * header.exponentSize();
+    }
+
+    Ballot ballot(ByteBuffer record) {
+        Metrics.BYTES_PARSED.add(record.remaining());
+        reset(record);
+        var builder = Ballot.builder()
+            .electionUuid(header.electionUuid())
+            .electionHash(header.electionHash());
+        int numAnswers = readShort();
+        for (int i = 0; i < numAnswers; i++) {
+            builder.addAnswers(readAnswer());
+        }
+        var signature = Signature.builder()
+            .publicKey(readElement())
+            .challenge(readExponent())
+            .response(readExponent())
+            .build();
+        return builder.signature(signature).build();
+    }
+
+    /**
+     * Adds the ciphertexts of all answers to the given lists, skipping the proofs.
+     *
+     * @return the public credential
+     */
+    BigInteger choices(ByteBuffer record, List<BigInteger> alphas, List<BigInteger> betas) {
+        Metrics.BYTES_PARSED.add(record.remaining());
+        reset(record);
+        int proofSize = 2 * header.exponentSize();
+        int numAnswers = readShort();
+        for (int i = 0; i < numAnswers; i++) {
+            int numChoices = readShort();
+            for (int j = 0; j < numChoices; j++) {
+                alphas.add(readElement());
+                betas.add(readElement());
+            }
+            // individual proofs, overall proof, blank proof
+            for (int j = 0; j < numChoices + 2; j++) {
+                skip(readByte() * proofSize);
+            }
+        }
+        return readElement();
+    }
+
+    /**
+     * Reads the public credential from its fixed position at the end of the record.
+     */
+    BigInteger publicCredential(ByteBuffer record) {
+        reset(record);
+        skip(record.remaining() - signatureLength());
+        return readElement();
+    }
+
+    private void reset(ByteBuffer record) {
+        this.record = record;
+        this.view = record.hasArray() ? null : record.duplicate();
+        this.position = record.position();
+    }
+
+    private Answer readAnswer() {
+        var builder = Answer.builder();
+        int numChoices = readShort();
+        for (int j = 0; j < numChoices; j++) {
+            builder.addChoices(Ciphertext.builder().alpha(readElement()).beta(readElement()).build());
+        }
+        for (int j = 0; j < numChoices; j++) {
+            builder.addIndividualProofs(readProofs());
+        }
+        return builder.overallProof(readProofs()).blankProof(readProofs()).build();
+    }
+
+    private List<Proof> readProofs() {
+        int numProofs = readByte();
+        List<Proof> proofs = new ArrayList<>(numProofs);
+        for (int k = 0; k < numProofs; k++) {
+            proofs.add(Proof.builder().challenge(readExponent()).response(readExponent()).build());
+        }
+        return proofs;
+    }
+
+    private void skip(int n) {
+        require(n);
+        position += n;
+    }
+
+    private int readByte() {
+        require(1);
+        return record.get(position++) & 0xFF;
+    }
+
+    private int readShort() {
+        require(2);
+        int value = record.getShort(position) & 0xFFFF;
+        position += 2;
+        return value;
+    }
+
+    private BigInteger readElement() {
+        return readFixed(header.elementSize());
+    }
+
+    private BigInteger readExponent() {
+        return readFixed(header.exponentSize());
+    }
+
+    private BigInteger readFixed(int size) {
+        require(size);
+        if (record.hasArray()) {
+            var value = new BigInteger(1, record.array(), record.arrayOffset() + position, size);
+            position += size;
+            return value;
+        }
+        view.position(position);
+        view.get(scratch, 0, size);
+        position += size;
+        return new BigInteger(1, scratch, 0, size);
+    }
+
+    private void require(int n) {
+        if (n < 0 || position + n > record.limit()) {
+            throw new IllegalArgumentException("Truncated ballot record");
+        }
+    }
+}
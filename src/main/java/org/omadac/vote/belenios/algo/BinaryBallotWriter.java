@@ -0,0 +1,145 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.omadac.vote.belenios.model.Answer;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Ciphertext;
+import org.omadac.vote.belenios.model.Proof;
+
+/**
+ * Writes ballots in a compact binary format.
+ * <p>
+ * After the {@link BinaryBallotHeader}, each ballot is written as a record with a 4-byte length,
+ * followed by
+ * <ul>
+ * <li>the number of answers (2 bytes), and for each answer
+ * <ul>
+ * <li>the number of choices (2 bytes) and the alpha and beta of each choice,</li>
+ * <li>for each choice, the number of individual proofs (1 byte) and the proofs,</li>
+ * <li>the number of overall proofs (1 byte) and the proofs,</li>
+ * <li>the number of blank proofs (1 byte) and the proofs,</li>
+ * </ul>
+ * </li>
+ * <li>the public credential, challenge and response of the signature.</li>
+ * </ul>
+ * Group elements and exponents are unsigned big-endian numbers with the fixed widths given in the
+ * header. A proof is a challenge followed by a response.
+ */
+public class BinaryBallotWriter implements Closeable {
+
+    private final BinaryBallotHeader header;
+
+    private final DataOutputStream out;
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    private final byte[] padding;
+
+    private int numBallots;
+
+    public BinaryBallotWriter(OutputStream out, BinaryBallotHeader header) throws IOException {
+        this.header = header;
+        this.out = new DataOutputStream(out);
+        this.padding = new byte[Math.max(header.elementSize(), header.exponentSize())];
+        header.write(this.out);
+    }
+
+    public BinaryBallotHeader header() {
+        return header;
+    }
+
+    public int numBallots() {
+        return numBallots;
+    }
+
+    /**
+     * Appends a ballot.
+     *
+     * @throws IllegalArgumentException
+     *             if the ballot belongs to a different election or contains a number which does not
+     *             fit into the widths of the header
+     */
+    public void write(Ballot ballot) throws IOException {
+        if (!ballot.electionUuid().equals(header.electionUuid())
+            || !ballot.electionHash().equals(header.electionHash())) {
+            throw new IllegalArgumentException("Ballot does not belong to election " + header.electionUuid());
+        }
+        record.reset();
+        recordOut.writeShort(count(ballot.answers().size(), 0xFFFF));
+        for (Answer answer: ballot.answers()) {
+            writeAnswer(answer);
+        }
+        writeElement(ballot.signature().publicKey());
+        writeExponent(ballot.signature().challenge());
+        writeExponent(ballot.signature().response());
+
+        out.writeInt(record.size());
+        record.writeTo(out);
+        numBallots++;
+    }
+
+    private void writeAnswer(Answer answer) throws IOException {
+        recordOut.writeShort(count(answer.choices().size(), 0xFFFF));
+        for (Ciphertext ct: answer.choices()) {
+            writeElement(ct.alpha());
+            writeElement(ct.beta());
+        }
+        if (answer.individualProofs().size() != answer.choices().size()) {
+            throw new IllegalArgumentException("Number of individual proofs does not match choices");
+        }
+        for (List<Proof> proofs: answer.individualProofs()) {
+            writeProofs(proofs);
+        }
+        writeProofs(answer.overallProof());
+        writeProofs(answer.blankProof());
+    }
+
+    private void writeProofs(List<Proof> proofs) throws IOException {
+        recordOut.writeByte(count(proofs.size(), 0xFF));
+        for (Proof proof: proofs) {
+            writeExponent(proof.challenge());
+            writeExponent(proof.response());
+        }
+    }
+
+    private static int count(int count, int max) {
+        if (count > max) {
+            throw new IllegalArgumentException("Too many items: " + count);
+        }
+        return count;
+    }
+
+    private void writeElement(BigInteger value) throws IOException {
+        writeFixed(value, header.elementSize());
+    }
+
+    private void writeExponent(BigInteger value) throws IOException {
+        writeFixed(value, header.exponentSize());
+    }
+
+    private void writeFixed(BigInteger value, int size) throws IOException {
+        if (value.signum() < 0 || value.bitLength() > 8 * size) {
+            throw new IllegalArgumentException("Number does not fit into " + size + " bytes: " + value);
+        }
+        var bytes = value.toByteArray();
+        // toByteArray() may add a leading sign byte
+        int offset = bytes.length > size ? 1 : 0;
+        int length = bytes.length - offset;
+        recordOut.write(padding, 0, size - length);
+        recordOut.write(bytes, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -1,21 +1,14 @@
 package org.omadac.vote.belenios.algo;
 
-import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
-import static org.omadac.vote.belenios.algo.ModularChecksum.checksum;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.graalvm.collections.Pair;
+import org.omadac.vote.belenios.algo.RandomnessPool.Randomness;
 import org.omadac.vote.belenios.model.Answer;
 import org.omadac.vote.belenios.model.Ballot;
 import org.omadac.vote.belenios.model.Ciphertext;
@@ -25,37 +18,69 @@ import org.omadac.vote.belenios.model.Election;
 import org.omadac.vote.belenios.model.Proof;
 import org.omadac.vote.belenios.model.Question;
 import org.omadac.vote.belenios.model.Signature;
-import org.omadac.vote.belenios.model.WrappedPublicKey;
 
 public class CreateBallot {
 
     public static Ballot createBallot(Election election, Credentials credentials,
         List<List<Integer>> rawVotes) {
+        return createBallot(election, credentials, rawVotes, RandomnessPool.onDemand(election.publicKey()));
+    }
+
+    public static Ballot createBallot(ElectionContext context, Credentials credentials,
+        List<List<Integer>> rawVotes) {
+        return createBallot(context, credentials, rawVotes, RandomnessPool.onDemand(context));
+    }
+
+    /**
+     * Creates a ballot, taking all random exponents and their powers of g and y from the given pool.
+     * <p>
+     * The secret exponent r of each ciphertext is known, so the commitments of simulated proofs can
+     * be computed as g^t, y^t and a power of g^u for random t and u, without any exponentiation of
+     * the ciphertext components. Given the pool, ballot creation only needs multiplications and
+     * hashing.
+     */
+    public static Ballot createBallot(Election election, Credentials credentials,
+        List<List<Integer>> rawVotes, RandomnessPool pool) {
+        return createBallot(ElectionContext.of(election), credentials, rawVotes, pool);
+    }
+
+    public static Ballot createBallot(ElectionContext context, Credentials credentials,
+        List<List<Integer>> rawVotes, RandomnessPool pool) {
+        var event = BallotEvent.start("create", -1);
+        long start = System.nanoTime();
+        var election = context.election();
         if (election.questions().size() != rawVotes.size()) {
             throw new IllegalArgumentException("Incorrect number of answers");
         }
+        if (!pool.publicKey().equals(election.publicKey())) {
+            throw new IllegalArgumentException("Randomness pool does not match election public key");
+        }
         List<Answer> answers = new ArrayList<>();
         for (int i = 0; i < rawVotes.size(); i++) {
             var question = election.questions().get(i);
             var rawVote = rawVotes.get(i);
-            var answer = createAnswer(election.publicKey(), credentials.publicCred(), question, rawVote);
+            var answer = createAnswer(pool, credentials.publicCred(), question, rawVote);
             answers.add(answer);
         }
-        Signature signature = createSignature(answers, credentials, election);
+        Signature signature = createSignature(answers, credentials, election, pool);
 
-        return Ballot.builder()
+        var ballot = Ballot.builder()
             .answers(answers)
             .electionUuid(election.uuid())
-            .electionHash(createElectionHash(election))
+            .electionHash(context.electionHash())
             .signature(signature)
             .build();
+        Metrics.BALLOT_CREATION.record(start);
+        event.finish(true);
+        return ballot;
     }
 
-    private static Answer createAnswer(WrappedPublicKey publicKey, BigInteger publicCred, Question question,
+    private static Answer createAnswer(RandomnessPool pool, BigInteger publicCred, Question question,
         List<Integer> rawVote) {
         validateRawVote(question, rawVote);
+        var publicKey = pool.publicKey();
 
-        var choicesAndProofs = rawVote.stream().map(vote -> createCiphertext(publicKey, publicCred, vote))
+        var choicesAndProofs = rawVote.stream().map(vote -> createCiphertext(pool, publicCred, vote))
             .collect(toList());
         var choicesAndSecrets = choicesAndProofs.stream().map(Pair::getLeft).collect(toList());
         var choices = choicesAndProofs.stream().map(Pair::getLeft).map(CiphertextAndSecret::ciphertext)
@@ -65,40 +90,40 @@ public class CreateBallot {
         var ct0 = choicesAndSecrets.get(0);
         var ctSigma = choicesAndSecrets.stream().skip(1)
             .reduce((left, right) -> left.combine(right, publicKey.group().p())).get();
-
-        var prefix = Stream
-            .of(publicKey.group().g(), publicKey.y(), ct0.alpha(), ct0.beta(), ctSigma.alpha(), ctSigma.beta())
-            .map(BigInteger::toString)
-            .collect(Collectors.joining(","));
+        int vote0 = rawVote.get(0);
+        int voteSigma = rawVote.stream().skip(1).reduce(0, Integer::sum);
 
         var builder = Answer.builder()
             .choices(choices)
-            .individualProofs(proofs)
-            .overallProof(createOverallProof(publicKey, publicCred, ct0, ctSigma, rawVote.get(0), prefix));
+            .individualProofs(proofs);
 
         if (question.blankAnswerAllowed()) {
-            builder.blankProof(createBlankProof(publicKey, publicCred, ct0, ctSigma, rawVote.get(0), prefix))
-                .overallProof(createOverallProof(publicKey, publicCred, ct0, ctSigma, rawVote.get(0), prefix));
+            var prefix = String.join(",", publicKey.group().g().toString(), publicKey.y().toString(),
+                ct0.alpha().toString(), ct0.beta().toString(), ctSigma.alpha().toString(), ctSigma.beta().toString());
+            builder.blankProof(createBlankProof(pool, publicCred, ct0, ctSigma, vote0, voteSigma, prefix))
+                .overallProof(createOverallProof(pool, publicCred, ct0, ctSigma, vote0, voteSigma, prefix));
         } else {
-            Integer choice = rawVote.stream().reduce(0, Integer::sum);
+            var ctAll = ct0.combine(ctSigma, publicKey.group().p());
+            Integer choice = vote0 + voteSigma;
             builder.overallProof(
-                createIntervalProof(publicKey, publicCred, ctSigma, choice, question.min(), question.max()));
+                createIntervalProof(pool, publicCred, ctAll, choice, question.min(), question.max()));
         }
         return builder.build();
     }
 
-    private static Pair<CiphertextAndSecret, List<Proof>> createCiphertext(WrappedPublicKey publicKey,
+    private static Pair<CiphertextAndSecret, List<Proof>> createCiphertext(RandomnessPool pool,
         BigInteger publicCred,
         int rawVote) {
-        var group = publicKey.group();
-
-        var r = GenRandomInteger.run(group.q());
-        var alpha = group.g().modPow(r, group.p());
-        var beta = publicKey.y().modPow(r, group.p())
-            .multiply(group.g().modPow(BigInteger.valueOf(rawVote), group.p()))
-            .mod(group.p());
-        var ct = CiphertextAndSecret.builder().alpha(alpha).beta(beta).r(r).build();
-        List<Proof> proofs = createIntervalProof(publicKey, publicCred, ct, rawVote, 0, 1);
+        var group = pool.publicKey().group();
+        var randomness = pool.next();
+        var beta = randomness.yr();
+        if (rawVote == 1) {
+            beta = beta.multiply(group.g()).mod(group.p());
+        } else if (rawVote != 0) {
+            beta = beta.multiply(pool.gExp().pow(BigInteger.valueOf(rawVote))).mod(group.p());
+        }
+        var ct = CiphertextAndSecret.builder().alpha(randomness.gr()).beta(beta).r(randomness.r()).build();
+        List<Proof> proofs = createIntervalProof(pool, publicCred, ct, rawVote, 0, 1);
         return Pair.create(ct, proofs);
     }
 
@@ -118,11 +143,43 @@ public class CreateBallot {
         }
     }
 
-    private static List<Proof> createIntervalProof(WrappedPublicKey publicKey, BigInteger publicCred,
+    /**
+     * Simulates a proof for a ciphertext (alpha, beta) = (g^r, y^r * g^v) with the verification
+     * equations a = g^s * alpha^(sign*c) and b = y^s * g^(-sign*j*c) * beta^(sign*c).
+     * <p>
+     * Substituting alpha and beta gives a = g^t and b = y^t * g^(sign*(v-j)*c) with t = s + sign*r*c.
+     * For random t and u, we choose c = u or c = -u, such that g^(sign*(v-j)*c) is a small power of
+     * g^u. Then s = t - sign*r*c is uniformly distributed like a random response.
+     *
+     * @return the simulated proof and its commitments (a, b)
+     */
+    private static Pair<Proof, Ciphertext> simulateProof(RandomnessPool pool, BigInteger r, int v, int j,
+        int sign) {
+        var group = pool.publicKey().group();
+        var p = group.p();
+        var q = group.q();
+        var t = pool.next();
+        var u = pool.next();
+
+        int k = sign * (v - j);
+        var challenge = (k >= 0) ? u.r() : q.subtract(u.r()).mod(q);
+        var b = t.yr();
+        for (int i = 0; i < Math.abs(k); i++) {
+            b = b.multiply(u.gr()).mod(p);
+        }
+        var rc = r.multiply(challenge);
+        var response = (sign > 0 ? t.r().subtract(rc) : t.r().add(rc)).mod(q);
+
+        var proof = Proof.builder().challenge(challenge).response(response).build();
+        var ab = Ciphertext.builder().alpha(t.gr()).beta(b).build();
+        return Pair.create(proof, ab);
+    }
+
+    private static List<Proof> createIntervalProof(RandomnessPool pool, BigInteger publicCred,
         CiphertextAndSecret ct, int choice, int min, int max) {
         List<Proof> proofs = new ArrayList<>();
         List<Ciphertext> abs = new ArrayList<>();
-        var group = publicKey.group();
+        var group = pool.publicKey().group();
         for (int j = min; j <= max; j++) {
             if (j == choice) {
                 var proof = Proof.builder().challenge(BigInteger.ZERO).response(BigInteger.ZERO).build();
@@ -131,184 +188,155 @@ public class CreateBallot {
                 var ab = Ciphertext.builder().alpha(BigInteger.ZERO).beta(BigInteger.ZERO).build();
                 abs.add(ab);
             } else {
-                var challenge = GenRandomInteger.run(group.q());
-                var response = GenRandomInteger.run(group.q());
-                var proof = Proof.builder().challenge(challenge).response(response).build();
-                proofs.add(proof);
-
-                var a1Num = group.g().modPow(response, group.p());
-                var aDenom = ct.alpha().modPow(challenge, group.p());
-                var a = a1Num.multiply(aDenom.modInverse(group.p())).mod(group.p());
-
-                var bNum = publicKey.y().modPow(response, group.p());
-                var bDenom = ct.beta()
-                    .multiply(group.g().modInverse(group.p()).modPow(BigInteger.valueOf(j), group.p()))
-                    .modPow(challenge, group.p());
-                var b = bNum.multiply(bDenom.modInverse(group.p())).mod(group.p());
-
-                var ab = Ciphertext.builder().alpha(a).beta(b).build();
-                abs.add(ab);
+                // a = g^s * alpha^-c, b = y^s * g^(j*c) * beta^-c
+                var simulated = simulateProof(pool, ct.r(), choice, j, -1);
+                proofs.add(simulated.getLeft());
+                abs.add(simulated.getRight());
             }
         }
         int i = choice - min;
-        var w = GenRandomInteger.run(group.q());
-        var ai = group.g().modPow(w, group.p());
-        var bi = publicKey.y().modPow(w, group.p());
-        var abi = Ciphertext.builder().alpha(ai).beta(bi).build();
+        var w = pool.next();
+        var abi = Ciphertext.builder().alpha(w.gr()).beta(w.yr()).build();
         abs.set(i, abi);
 
-        var suffix = abs.stream()
-            .flatMap(ab -> Stream.of(ab.alpha(), ab.beta()))
-            .map(BigInteger::toString)
-            .collect(joining(","));
-
-        var message = String.format("prove|%s|%s,%s|%s", publicCred.toString(),
-            ct.alpha().toString(), ct.beta().toString(), suffix);
-        var checksum = checksum(message, group.q());
+        var transcript = Transcript.start("prove")
+            .section().add(publicCred)
+            .section().add(ct.alpha()).add(ct.beta())
+            .section();
+        for (Ciphertext ab: abs) {
+            transcript.add(ab.alpha()).add(ab.beta());
+        }
+        var checksum = transcript.checksum(group.q());
 
         var challengeSum = proofs.stream().map(Proof::challenge).reduce(BigInteger.ZERO, BigInteger::add);
         var challengei = checksum.subtract(challengeSum).mod(group.q());
-        var responsei = challengei.multiply(ct.r()).add(w).mod(group.q());
+        var responsei = challengei.multiply(ct.r()).add(w.r()).mod(group.q());
         var proofi = Proof.builder().challenge(challengei).response(responsei).build();
         proofs.set(i, proofi);
 
         return proofs;
     }
 
-    private static List<Proof> createBlankProof(WrappedPublicKey publicKey, BigInteger publicCred,
+    private static List<Proof> createBlankProof(RandomnessPool pool, BigInteger publicCred,
         CiphertextAndSecret ct0, CiphertextAndSecret ctSigma,
-        int isBlank, String prefix) {
-        var group = publicKey.group();
+        int isBlank, int voteSigma, String prefix) {
+        var group = pool.publicKey().group();
 
+        // a = g^s * alpha^c, b = y^s * beta^c
         if (isBlank == 0) {
-            var challengeSigma = GenRandomInteger.run(group.q());
-            var responseSigma = GenRandomInteger.run(group.q());
-
-            var aSigma = group.g().modPow(responseSigma, group.p())
-                .multiply(ctSigma.alpha().modPow(challengeSigma, group.p())).mod(group.p());
-            var bSigma = publicKey.y().modPow(responseSigma, group.p())
-                .multiply(ctSigma.beta().modPow(challengeSigma, group.p())).mod(group.p());
-
-            var w = GenRandomInteger.run(group.q());
-            var a0 = group.g().modPow(w, group.p());
-            var b0 = publicKey.y().modPow(w, group.p());
+            var simulated = simulateProof(pool, ctSigma.r(), voteSigma, 0, 1);
+            var proofSigma = simulated.getLeft();
 
-            var message = String.format("bproof0|%s|%s|%s,%s,%s,%s", publicCred, prefix, a0, b0, aSigma, bSigma);
-            var checksum = checksum(message, group.q());
+            var w = pool.next();
+            var checksum = Transcript.start("bproof0")
+                .section().add(publicCred)
+                .section().add(prefix)
+                .section().add(w.gr()).add(w.yr()).add(simulated.getRight().alpha()).add(simulated.getRight().beta())
+                .checksum(group.q());
 
-            var challenge0 = checksum.subtract(challengeSigma).mod(group.q());
-            var response0 = w.subtract(ct0.r().multiply(challenge0)).mod(group.q());
+            var challenge0 = checksum.subtract(proofSigma.challenge()).mod(group.q());
+            var response0 = w.r().subtract(ct0.r().multiply(challenge0)).mod(group.q());
 
             var proof0 = Proof.builder().challenge(challenge0).response(response0).build();
-            var proofSigma = Proof.builder().challenge(challengeSigma).response(responseSigma).build();
             return List.of(proof0, proofSigma);
         } else {
-            var challenge0 = GenRandomInteger.run(group.q());
-            var response0 = GenRandomInteger.run(group.q());
-
-            var a0 = group.g().modPow(response0, group.p())
-                .multiply(ct0.alpha().modPow(challenge0, group.p())).mod(group.p());
-            var b0 = publicKey.y().modPow(response0, group.p())
-                .multiply(ct0.beta().modPow(challenge0, group.p())).mod(group.p());
-
-            var w = GenRandomInteger.run(group.q());
-            var aSigma = group.g().modPow(w, group.p());
-            var bSigma = publicKey.y().modPow(w, group.p());
+            var simulated = simulateProof(pool, ct0.r(), isBlank, 0, 1);
+            var proof0 = simulated.getLeft();
 
-            String message = String.format("bproof0|%s|%s|%s,%s,%s,%s", publicCred, prefix, a0, b0, aSigma, bSigma);
-            var checksum = checksum(message, group.q());
+            var w = pool.next();
+            var checksum = Transcript.start("bproof0")
+                .section().add(publicCred)
+                .section().add(prefix)
+                .section().add(simulated.getRight().alpha()).add(simulated.getRight().beta()).add(w.gr()).add(w.yr())
+                .checksum(group.q());
 
-            var challengeSigma = checksum.subtract(challenge0).mod(group.q());
-            var responseSigma = w.subtract(ctSigma.r().multiply(challengeSigma)).mod(group.q());
+            var challengeSigma = checksum.subtract(proof0.challenge()).mod(group.q());
+            var responseSigma = w.r().subtract(ctSigma.r().multiply(challengeSigma)).mod(group.q());
 
-            var proof0 = Proof.builder().challenge(challenge0).response(response0).build();
             var proofSigma = Proof.builder().challenge(challengeSigma).response(responseSigma).build();
             return List.of(proof0, proofSigma);
         }
     }
 
-    private static List<Proof> createOverallProof(WrappedPublicKey publicKey, BigInteger publicCred,
+    private static List<Proof> createOverallProof(RandomnessPool pool, BigInteger publicCred,
         CiphertextAndSecret ct0, CiphertextAndSecret ctSigma,
-        int isBlank, String prefix) {
-        var group = publicKey.group();
+        int isBlank, int voteSigma, String prefix) {
+        var group = pool.publicKey().group();
 
+        // a = g^s * alpha^c, b = y^s * g^-c * beta^c
         if (isBlank == 0) {
-            var challenge0 = GenRandomInteger.run(group.q());
-            var response0 = GenRandomInteger.run(group.q());
-
-            var a0 = group.g().modPow(response0, group.p())
-                .multiply(ct0.alpha().modPow(challenge0, group.p())).mod(group.p());
-            var b0 = publicKey.y().modPow(response0, group.p())
-                .multiply(ct0.beta().multiply(group.g().modInverse(group.p()))
-                    .modPow(challenge0, group.p()))
-                .mod(group.p());
-            var w = GenRandomInteger.run(group.q());
-            var a1 = group.g().modPow(w, group.p());
-            var b1 = publicKey.y().modPow(w, group.p());
-
-            var message = String.format("bproof1|%s|%s|%s,%s,%s,%s", publicCred, prefix, a0, b0, a1, b1);
-            var checksum = checksum(message, group.q());
-
-            var challenge1 = checksum.subtract(challenge0).mod(group.q());
-            var response1 = w.subtract(ctSigma.r().multiply(challenge1)).mod(group.q());
-            var proof0 = Proof.builder().challenge(challenge0).response(response0).build();
+            var simulated = simulateProof(pool, ct0.r(), isBlank, 1, 1);
+            var proof0 = simulated.getLeft();
+
+            var w = pool.next();
+            var checksum = Transcript.start("bproof1")
+                .section().add(publicCred)
+                .section().add(prefix)
+                .section().add(simulated.getRight().alpha()).add(simulated.getRight().beta()).add(w.gr()).add(w.yr())
+                .checksum(group.q());
+
+            var challenge1 = checksum.subtract(proof0.challenge()).mod(group.q());
+            var response1 = w.r().subtract(ctSigma.r().multiply(challenge1)).mod(group.q());
             var proof1 = Proof.builder().challenge(challenge1).response(response1).build();
             return List.of(proof0, proof1);
 
         } else {
-            var challenge1 = GenRandomInteger.run(group.q());
-            var response1 = GenRandomInteger.run(group.q());
-
-            var a1 = group.g().modPow(response1, group.p())
-                .multiply(ctSigma.alpha().modPow(challenge1, group.p())).mod(group.p());
-            var b1 = publicKey.y().modPow(response1, group.p())
-                .multiply(ctSigma.beta().multiply(group.g().modInverse(group.p()))
-                    .modPow(challenge1, group.p()))
-                .mod(group.p());
-            var w = GenRandomInteger.run(group.q());
-            var a0 = group.g().modPow(w, group.p());
-            var b0 = publicKey.y().modPow(w, group.p());
-
-            var message = String.format("bproof1|%s|%s|%s,%s,%s,%s", publicCred, prefix, a0, b0, a1, b1);
-            var checksum = checksum(message, group.q());
-
-            var challenge0 = checksum.subtract(challenge1).mod(group.q());
-            var response0 = w.subtract(ct0.r().multiply(challenge0)).mod(group.q());
+            var simulated = simulateProof(pool, ctSigma.r(), voteSigma, 1, 1);
+            var proof1 = simulated.getLeft();
+
+            var w = pool.next();
+            var checksum = Transcript.start("bproof1")
+                .section().add(publicCred)
+                .section().add(prefix)
+                .section().add(w.gr()).add(w.yr()).add(simulated.getRight().alpha()).add(simulated.getRight().beta())
+                .checksum(group.q());
+
+            var challenge0 = checksum.subtract(proof1.challenge()).mod(group.q());
+            var response0 = w.r().subtract(ct0.r().multiply(challenge0)).mod(group.q());
             var proof0 = Proof.builder().challenge(challenge0).response(response0).build();
-            var proof1 = Proof.builder().challenge(challenge1).response(response1).build();
             return List.of(proof0, proof1);
         }
     }
 
+    /**
+     * Computes the hash of the canonical serialization of an election, which is the hash of
+     * election.json as published when the file was written by {@link JsonMapper#CANONICAL}. This
+     * serializes the whole election, use {@link ElectionContext#electionHash()} to compute it only
+     * once.
+     */
     public static String createElectionHash(Election election) {
         try {
-            var json = JsonMapper.INSTANCE.writeValueAsString(election);
-            var digest = MessageDigest.getInstance("SHA-256");
-            var encodedhash = digest.digest(json.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().withoutPadding().encodeToString(encodedhash);
-
+            return ElectionContext.hash(JsonMapper.CANONICAL.writeValueAsString(election));
         } catch (IOException exc) {
             throw new IllegalStateException("cannot serialize election", exc);
-        } catch (NoSuchAlgorithmException exc) {
-            throw new IllegalStateException("cannot compute digest", exc);
         }
     }
 
     public static Signature createSignature(List<Answer> answers, Credentials credentials,
         Election election) {
+        return createSignature(answers, credentials, election, RandomnessPool.onDemand(election.publicKey()));
+    }
+
+    public static Signature createSignature(List<Answer> answers, Credentials credentials,
+        Election election, RandomnessPool pool) {
 
         var group = election.publicKey().group();
         var secretKey = GenCredentials.toSecretKey(credentials.privateCred(), election.uuid(), group);
 
-        var w = GenRandomInteger.run(group.q());
-        var a = group.g().modPow(w, group.p());
-
-        var text = answers.stream().flatMap(answer -> answer.choices().stream())
-            .map(c -> c.alpha() + "," + c.beta())
-            .collect(Collectors.joining(","));
-
-        var message = String.format("sig|%s|%s|%s", credentials.publicCred(), a, text);
-        var challenge = checksum(message, group.q());
+        var randomness = pool.next();
+        var w = randomness.r();
+        var a = randomness.gr();
+
+        var transcript = Transcript.start("sig")
+            .section().add(credentials.publicCred())
+            .section().add(a)
+            .section();
+        for (Answer answer: answers) {
+            for (Ciphertext c: answer.choices()) {
+                transcript.add(c.alpha()).add(c.beta());
+            }
+        }
+        var challenge = transcript.checksum(group.q());
         var response = w.subtract(secretKey.multiply(challenge)).mod(group.q());
 
         return Signature.builder()
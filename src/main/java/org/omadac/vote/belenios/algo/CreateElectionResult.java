@@ -4,9 +4,7 @@ import static java.util.stream.Collectors.toList;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Function;
 
 import org.omadac.vote.belenios.model.Ciphertext;
@@ -18,9 +16,9 @@ public class CreateElectionResult {
 
     public static Result createResult(Election election, int numTallied,
         List<List<Ciphertext>> encryptedTally, List<PartialDecryption> partialDecryptions) {
-        var g = election.publicKey().group().g();
-        var p = election.publicKey().group().p();
-        Map<BigInteger, Integer> logTable = createLogTable(numTallied, g, p);
+        var group = election.publicKey().group();
+        var p = group.p();
+        var discreteLog = new DiscreteLog(group, numTallied);
 
         List<List<Integer>> result = new ArrayList<>();
         for (int i = 0; i < encryptedTally.size(); i++) {
@@ -31,7 +29,11 @@ public class CreateElectionResult {
                 var factor = factor(i, j, partialDecryptions, p);
 
                 var exp = ct.beta().multiply(factor.modInverse(p)).mod(p);
-                var resultValue = logTable.get(exp);
+                var event = DecryptionEvent.start("discrete-log", i, j);
+                long start = System.nanoTime();
+                var resultValue = discreteLog.log(exp);
+                Metrics.DISCRETE_LOG.record(start);
+                event.finish();
                 resultItems.add(resultValue);
             }
             result.add(resultItems);
@@ -53,17 +55,6 @@ public class CreateElectionResult {
         return factor;
     }
 
-    private static Map<BigInteger, Integer> createLogTable(int numTallied, BigInteger g, BigInteger p) {
-        BigInteger value = BigInteger.ONE;
-        Map<BigInteger, Integer> logTable = new HashMap<>();
-        logTable.put(value, 0);
-        for (int exp = 1; exp <= numTallied; exp++) {
-            value = value.multiply(g).mod(p);
-            logTable.put(value, exp);
-        }
-        return logTable;
-    }
-
     public static <T, U> List<List<U>> transform(List<List<T>> listOfLists, Function<T, U> function) {
         return listOfLists.stream().map(list -> transformItems(list, function)).collect(toList());
     }
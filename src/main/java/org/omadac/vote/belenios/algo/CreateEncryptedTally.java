@@ -2,9 +2,13 @@ package org.omadac.vote.belenios.algo;
 
 import static java.util.stream.Collectors.toList;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -17,17 +21,85 @@ import org.omadac.vote.belenios.model.WeightedBallot;
 public class CreateEncryptedTally {
 
     public static List<List<Ciphertext>> tally(Election election, Stream<Ballot> ballots) {
-        List<List<Ciphertext>> neutral = neutral(election);
-        BigInteger p = election.publicKey().group().p();
-        return ballots.map(b -> extractCiphertexts(b))
-            .reduce(neutral, (left, right) -> combine(left, right, p));
+        return ballots.collect(() -> new TallyAccumulator(election), TallyAccumulator::absorb,
+            TallyAccumulator::merge).snapshot();
     }
 
     public static List<List<Ciphertext>> tallyWeighted(Election election, Stream<WeightedBallot> ballots) {
-        List<List<Ciphertext>> neutral = neutral(election);
-        BigInteger p = election.publicKey().group().p();
-        return ballots.map(b -> extractCiphertexts(b, p))
-            .reduce(neutral, (left, right) -> combine(left, right, p));
+        return ballots.collect(() -> new TallyAccumulator(election), TallyAccumulator::absorb,
+            TallyAccumulator::merge).snapshot();
+    }
+
+    /**
+     * Tallies a sequence of JSON or binary ballots one at a time, keeping only the running product in
+     * memory.
+     *
+     * @param weights
+     *            maps the public credential of a ballot to its weight, or to null for an unknown
+     *            credential
+     */
+    public static TallyAccumulator tallyWeighted(Election election, InputStream ballots,
+        Function<BigInteger, Integer> weights) throws IOException {
+        var event = TallyEvent.start();
+        var accumulator = new TallyAccumulator(election);
+        parse(ballots, weightedHandler(accumulator, weights));
+        event.finish(accumulator.numBallots(), accumulator.totalWeight());
+        return accumulator;
+    }
+
+    /**
+     * Like {@link #tallyWeighted(Election, InputStream, Function)}, but only tallies the newest
+     * ballot of each credential.
+     *
+     * @param revotes
+     *            index of the same ballots, where the ordinal of a ballot is its position in the
+     *            stream
+     */
+    public static TallyAccumulator tallyLatest(Election election, InputStream ballots,
+        Function<BigInteger, Integer> weights, RevoteIndex revotes) throws IOException {
+        var event = TallyEvent.start();
+        var accumulator = new TallyAccumulator(election);
+        var handler = weightedHandler(accumulator, weights);
+        int[] ordinal = {0};
+        parse(ballots, (publicCred, alphas, betas) -> {
+            if (revotes.isLatest(publicCred, ordinal[0]++)) {
+                handler.ballot(publicCred, alphas, betas);
+            }
+        });
+        event.finish(accumulator.numBallots(), accumulator.totalWeight());
+        return accumulator;
+    }
+
+    private static void parse(InputStream ballots, StreamingBallotParser.Handler handler) throws IOException {
+        var in = ballots.markSupported() ? ballots : new BufferedInputStream(ballots);
+        if (BinaryBallotReader.isBinary(in)) {
+            new BinaryBallotReader(in).parse(handler);
+        } else {
+            StreamingBallotParser.parse(in, handler);
+        }
+    }
+
+    /**
+     * Tallies the remaining ballots of a binary ballot reader.
+     */
+    public static TallyAccumulator tallyWeighted(Election election, BinaryBallotReader ballots,
+        Function<BigInteger, Integer> weights) throws IOException {
+        var event = TallyEvent.start();
+        var accumulator = new TallyAccumulator(election);
+        ballots.parse(weightedHandler(accumulator, weights));
+        event.finish(accumulator.numBallots(), accumulator.totalWeight());
+        return accumulator;
+    }
+
+    static StreamingBallotParser.Handler weightedHandler(TallyAccumulator accumulator,
+        Function<BigInteger, Integer> weights) {
+        return (publicCred, alphas, betas) -> {
+            var weight = weights.apply(publicCred);
+            if (weight == null) {
+                throw new IllegalArgumentException("Unknown credential " + publicCred);
+            }
+            accumulator.absorb(alphas, betas, weight);
+        };
     }
 
     public static List<List<Ciphertext>> neutral(Election election) {
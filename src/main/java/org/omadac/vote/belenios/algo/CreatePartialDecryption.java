@@ -1,7 +1,6 @@
 package org.omadac.vote.belenios.algo;
 
 import static java.util.stream.Collectors.toList;
-import static org.omadac.vote.belenios.algo.ModularChecksum.checksum;
 
 import java.math.BigInteger;
 import java.util.List;
@@ -18,14 +17,12 @@ public class CreatePartialDecryption {
 
     public static PartialDecryption decrypt(Election election, TrusteeKeyPair keyPair,
         List<List<Ciphertext>> encryptedTally) {
-        var decryptionFactorsAndProofs = transform(encryptedTally,
-            ct -> decryptionFactorAndProof(ct, election, keyPair));
-        List<List<BigInteger>> decryptionFactors = transform(decryptionFactorsAndProofs, Pair::getLeft);
-        List<List<Proof>> proofs = transform(decryptionFactorsAndProofs, Pair::getRight);
-        return PartialDecryption.builder()
-            .decryptionFactors(decryptionFactors)
-            .decryptionProofs(proofs)
-            .build();
+        return decrypt(election, keyPair, encryptedTally, 1);
+    }
+
+    public static PartialDecryption decrypt(Election election, TrusteeKeyPair keyPair,
+        List<List<Ciphertext>> encryptedTally, int threads) {
+        return new PartialDecryptionEngine(election, keyPair).decrypt(encryptedTally, threads);
     }
 
     public static <T, U> List<List<U>> transform(List<List<T>> listOfLists, Function<T, U> function) {
@@ -38,30 +35,16 @@ public class CreatePartialDecryption {
 
     public static Pair<BigInteger, Proof> decryptionFactorAndProof(Ciphertext ct, Election election,
         TrusteeKeyPair keyPair) {
-        var x = keyPair.privateKey();
-        var g = election.publicKey().group().g();
-        var p = election.publicKey().group().p();
-        var q = election.publicKey().group().q();
-        var factor = ct.alpha().modPow(x, p);
-
-        var w = GenRandomInteger.run(q);
-        var a = g.modPow(w, p);
-        var b = ct.alpha().modPow(w, p);
-
-        var message = String.format("decrypt|%s|%s,%s", keyPair.trusteePublicKey().publicKey(), a, b);
-        var challenge = checksum(message, q);
-        var response = challenge.multiply(x).add(w).mod(p);
-        var proof = Proof.builder().challenge(challenge).response(response).build();
-        return Pair.create(factor, proof);
+        return new PartialDecryptionEngine(election, keyPair).decrypt(ct);
     }
 
     public static boolean verify(Election election, TrusteeKeyPair keyPair,
         List<List<Ciphertext>> encryptedTally, PartialDecryption decryption) {
 
         var y = keyPair.trusteePublicKey().publicKey();
-        var g = election.publicKey().group().g();
-        var p = election.publicKey().group().p();
-        var q = election.publicKey().group().q();
+        var group = election.publicKey().group();
+        var q = group.q();
+        var gExp = FixedBaseExp.generator(group);
 
         for (int i = 0; i < encryptedTally.size(); i++) {
             List<Ciphertext> tallyItem = encryptedTally.get(i);
@@ -72,17 +55,18 @@ public class CreatePartialDecryption {
                 Proof proof = proofs.get(j);
                 BigInteger factor = factors.get(j);
 
-                var a = g.modPow(proof.response(), p)
-                    .multiply(y.modPow(proof.challenge(), p).modInverse(p))
-                    .mod(p);
+                var event = ProofEvent.start("decryption", -1, i, j);
+                long start = System.nanoTime();
+                var a = MultiExp.pow(gExp, proof.response(), y, proof.challenge().negate(), group);
 
-                var b = ct.alpha().modPow(proof.response(), p)
-                    .multiply(factor.modPow(proof.challenge(), p).modInverse(p))
-                    .mod(p);
+                var b = MultiExp.of(group)
+                    .variable(ct.alpha(), proof.response())
+                    .variable(factor, proof.challenge().negate())
+                    .result();
 
-                var message = String.format("decrypt|%s|%s,%s", y, a, b);
-                var checksum = checksum(message, q);
-                if (!checksum.equals(proof.challenge())) {
+                var checksum = Transcript.start("decrypt").section().add(y).section().add(a).add(b).checksum(q);
+                Metrics.DECRYPTION_PROOF.record(start);
+                if (!event.finish(checksum.equals(proof.challenge()))) {
                     return false;
                 }
             }
@@ -0,0 +1,178 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The set of public credentials of an election with their weights.
+ * <p>
+ * Only a 128-bit {@link Fingerprint#wide(BigInteger) fingerprint} of each credential is kept, in an
+ * open addressing table of primitives, and the weights are bit-packed with the width of the largest
+ * weight, so a credential needs a few dozen bytes instead of a boxed 2048-bit key and value. At 128
+ * bits, finding an unknown credential with the fingerprint of a registered one is not feasible, so
+ * a fingerprint match is taken as a match of the credential.
+ */
+public class CredentialRegistry {
+
+    private static final double MAX_LOAD = 0.75;
+
+    private final long[] highs;
+
+    private final long[] lows;
+
+    private final int mask;
+
+    private final int size;
+
+    private final int bitsPerWeight;
+
+    private final long[] weights;
+
+    private CredentialRegistry(long[] fingerprints, int[] weightList, int size) {
+        int capacity = Integer.highestOneBit(Math.max((int) Math.ceil(size / MAX_LOAD), 1));
+        if (capacity < size / MAX_LOAD) {
+            capacity <<= 1;
+        }
+        this.highs = new long[capacity];
+        this.lows = new long[capacity];
+        this.mask = capacity - 1;
+        this.size = size;
+
+        int maxWeight = 1;
+        for (int i = 0; i < size; i++) {
+            maxWeight = Math.max(maxWeight, weightList[i]);
+        }
+        this.bitsPerWeight = maxWeight == 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(maxWeight);
+        this.weights = new long[(int) (((long) capacity * bitsPerWeight + Long.SIZE - 1) / Long.SIZE)];
+
+        for (int i = 0; i < size; i++) {
+            long high = fingerprints[2 * i];
+            long low = fingerprints[2 * i + 1];
+            int slot = find(high, low);
+            if (isOccupied(slot)) {
+                throw new IllegalArgumentException("Duplicate public credential");
+            }
+            highs[slot] = high;
+            lows[slot] = low;
+            setWeight(slot, weightList[i]);
+        }
+    }
+
+    /**
+     * Reads a file with one public credential per line, optionally followed by a comma and a weight,
+     * like {@code public_creds.txt} or the {@code .pubcreds} file written by {@code credgen}.
+     */
+    public static CredentialRegistry read(Path publicCredsFile) throws IOException {
+        try (var reader = Files.newBufferedReader(publicCredsFile, UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    public static CredentialRegistry read(BufferedReader reader) throws IOException {
+        long[] fingerprints = new long[2048];
+        int[] weights = new int[1024];
+        int size = 0;
+        for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int comma = line.indexOf(',');
+            var publicCred = new BigInteger(comma < 0 ? line.trim() : line.substring(0, comma).trim());
+            int weight = comma < 0 ? 1 : Integer.parseInt(line.substring(comma + 1).trim());
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight must be positive: " + line);
+            }
+            if (size == weights.length) {
+                fingerprints = Arrays.copyOf(fingerprints, 4 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+            }
+            var fingerprint = fingerprint(publicCred);
+            fingerprints[2 * size] = fingerprint[0];
+            fingerprints[2 * size + 1] = fingerprint[1];
+            weights[size] = weight;
+            size++;
+        }
+        return new CredentialRegistry(fingerprints, weights, size);
+    }
+
+    /**
+     * The all-zero fingerprint marks an empty slot, so it is mapped to another value.
+     */
+    private static long[] fingerprint(BigInteger publicCred) {
+        var fingerprint = Fingerprint.wide(publicCred);
+        if (fingerprint[0] == 0 && fingerprint[1] == 0) {
+            fingerprint[1] = 1;
+        }
+        return fingerprint;
+    }
+
+    private int find(long high, long low) {
+        int slot = (int) high & mask;
+        while (isOccupied(slot) && !(highs[slot] == high && lows[slot] == low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean isOccupied(int slot) {
+        return highs[slot] != 0 || lows[slot] != 0;
+    }
+
+    private void setWeight(int slot, int weight) {
+        if (bitsPerWeight == 0) {
+            return;
+        }
+        long bit = (long) slot * bitsPerWeight;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        weights[word] |= (long) weight << shift;
+        if (shift + bitsPerWeight > Long.SIZE) {
+            weights[word + 1] |= (long) weight >>> (Long.SIZE - shift);
+        }
+    }
+
+    private int getWeight(int slot) {
+        if (bitsPerWeight == 0) {
+            return 1;
+        }
+        long bit = (long) slot * bitsPerWeight;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long value = weights[word] >>> shift;
+        if (shift + bitsPerWeight > Long.SIZE) {
+            value |= weights[word + 1] << (Long.SIZE - shift);
+        }
+        return (int) (value & ((1L << bitsPerWeight) - 1));
+    }
+
+    public boolean contains(BigInteger publicCred) {
+        var fingerprint = fingerprint(publicCred);
+        return isOccupied(find(fingerprint[0], fingerprint[1]));
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the credential is not registered
+     */
+    public int weight(BigInteger publicCred) {
+        var fingerprint = fingerprint(publicCred);
+        int slot = find(fingerprint[0], fingerprint[1]);
+        if (!isOccupied(slot)) {
+            throw new IllegalArgumentException("Unknown credential " + publicCred);
+        }
+        return getWeight(slot);
+    }
+
+    /**
+     * @return the number of registered credentials
+     */
+    public int size() {
+        return size;
+    }
+}
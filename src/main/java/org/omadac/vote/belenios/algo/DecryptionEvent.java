@@ -0,0 +1,41 @@
+package org.omadac.vote.belenios.algo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for decrypting a cell of the encrypted tally.
+ */
+@Name("belenios.Decryption")
+@Label("Decryption")
+@Category("Belenios")
+@Description("Partial decryption of a tally cell by a trustee, or discrete log of the decrypted cell")
+class DecryptionEvent extends Event {
+
+    @Label("Operation")
+    @Description("partial-decryption or discrete-log")
+    String operation;
+
+    @Label("Question")
+    int question;
+
+    @Label("Choice")
+    int choice;
+
+    static DecryptionEvent start(String operation, int question, int choice) {
+        var event = new DecryptionEvent();
+        event.operation = operation;
+        event.question = question;
+        event.choice = choice;
+        event.begin();
+        return event;
+    }
+
+    void finish() {
+        end();
+        commit();
+    }
+}
@@ -0,0 +1,100 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.omadac.vote.belenios.model.Group;
+
+/**
+ * Discrete logarithms to base g in the range 0..max by baby-step giant-step.
+ * <p>
+ * With m = ceil(sqrt(max + 1)), the table holds the {@link Fingerprint}s of the m baby steps g^j
+ * with their exponents j, in open addressing arrays of primitives. A lookup multiplies the value by
+ * g^-m up to m times until it hits a baby step, so time and memory are O(sqrt(max)) instead of the
+ * O(max) of a complete table. Every fingerprint match is verified by an exponentiation.
+ * <p>
+ * All steps are computed in Montgomery form, where a multiplication needs no division.
+ */
+public class DiscreteLog {
+
+    private static final int EMPTY = -1;
+
+    private final FixedBaseExp generator;
+
+    private final Montgomery montgomery;
+
+    private final int max;
+
+    private final int numBabySteps;
+
+    private final long[] keys;
+
+    private final int[] exponents;
+
+    private final int mask;
+
+    private final BigInteger giantStep;
+
+    public DiscreteLog(Group group, int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max must not be negative");
+        }
+        this.generator = FixedBaseExp.generator(group);
+        this.montgomery = generator.montgomery();
+        this.max = max;
+        this.numBabySteps = (int) Math.ceil(Math.sqrt(max + 1.0));
+
+        int capacity = Integer.highestOneBit(2 * numBabySteps - 1) << 1;
+        this.keys = new long[capacity];
+        this.exponents = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(exponents, EMPTY);
+
+        var g = montgomery.toMontgomery(group.g());
+        var babyStep = montgomery.one();
+        for (int j = 0; j < numBabySteps; j++) {
+            insert(Fingerprint.of(babyStep), j);
+            babyStep = montgomery.multiply(babyStep, g);
+        }
+
+        var p = group.p();
+        var inverse = group.g().modPow(BigInteger.valueOf(numBabySteps), p).modInverse(p);
+        this.giantStep = montgomery.toMontgomery(inverse);
+    }
+
+    private void insert(long key, int exponent) {
+        int slot = (int) key & mask;
+        while (exponents[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        exponents[slot] = exponent;
+    }
+
+    /**
+     * @return x with g^x = value and 0 &lt;= x &lt;= max, or null if there is no such x
+     */
+    public Integer log(BigInteger value) {
+        var gamma = montgomery.toMontgomery(value);
+        for (long base = 0; base <= max; base += numBabySteps) {
+            var x = find(Fingerprint.of(gamma), base, value);
+            if (x != null) {
+                return x;
+            }
+            gamma = montgomery.multiply(gamma, giantStep);
+        }
+        return null;
+    }
+
+    private Integer find(long key, long base, BigInteger value) {
+        for (int slot = (int) key & mask; exponents[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                long x = base + exponents[slot];
+                if (x <= max && generator.pow(BigInteger.valueOf(x)).equals(value)) {
+                    return (int) x;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,170 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.Group;
+import org.omadac.vote.belenios.model.WrappedPublicKey;
+
+/**
+ * Election invariant values derived once from an {@link Election} and shared by all ballots.
+ * <p>
+ * A context holds the fixed-base tables for g and y, the Montgomery parameters of p, the bit length
+ * of q, the decimal g,y prefix of the blank and overall proof messages and the election hash, so
+ * that per ballot work only contains ballot dependent arithmetic. The inverse of g and its powers
+ * are never needed, since {@link MultiExp} accepts negative exponents of fixed bases.
+ * <p>
+ * A context is immutable and can be shared by any number of threads.
+ */
+public final class ElectionContext {
+
+    private static volatile ElectionContext last;
+
+    private final Election election;
+
+    private final Group group;
+
+    private final int qBits;
+
+    private final FixedBaseExp gExp;
+
+    private final FixedBaseExp yExp;
+
+    private final String keyPrefix;
+
+    private final int[] questionSizes;
+
+    private volatile String electionHash;
+
+    private ElectionContext(Election election, String electionHash) {
+        this.election = election;
+        this.group = election.publicKey().group();
+        this.qBits = group.q().bitLength();
+        this.gExp = FixedBaseExp.generator(group);
+        this.yExp = FixedBaseExp.publicKey(election.publicKey());
+        this.keyPrefix = group.g() + "," + election.publicKey().y();
+        this.questionSizes = election.questions().stream()
+            .mapToInt(q -> q.blankAnswerAllowed() ? q.answers().size() + 1 : q.answers().size())
+            .toArray();
+        this.electionHash = electionHash;
+    }
+
+    /**
+     * Returns a context whose election hash is computed by {@link CreateBallot#createElectionHash}
+     * when it is first needed. The context of the most recently used election instance is reused, so
+     * that methods taking an {@link Election} do not derive it again for every ballot.
+     */
+    public static ElectionContext of(Election election) {
+        var context = last;
+        if (context == null || context.election != election) {
+            context = new ElectionContext(election, null);
+            last = context;
+        }
+        return context;
+    }
+
+    /**
+     * @param electionHash
+     *            the hash which ballots must contain, e.g. the SHA-256 of election.json as published
+     */
+    public static ElectionContext of(Election election, String electionHash) {
+        return new ElectionContext(election, electionHash);
+    }
+
+    /**
+     * Parses a published election. The election hash is the hash of the given JSON without
+     * surrounding white space, as computed by Belenios.
+     */
+    public static ElectionContext fromJson(String json) {
+        var stripped = json.strip();
+        return new ElectionContext(JsonMapper.fromJson(stripped, Election.class), hash(stripped));
+    }
+
+    public static ElectionContext read(Path electionFile) throws IOException {
+        return fromJson(Files.readString(electionFile, UTF_8));
+    }
+
+    /**
+     * @return the unpadded Base64 encoding of the SHA-256 of the given JSON
+     */
+    static String hash(String json) {
+        var digest = ModularChecksum.sha256().digest(json.getBytes(UTF_8));
+        return Base64.getEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    public Election election() {
+        return election;
+    }
+
+    public WrappedPublicKey publicKey() {
+        return election.publicKey();
+    }
+
+    public Group group() {
+        return group;
+    }
+
+    public BigInteger p() {
+        return group.p();
+    }
+
+    public BigInteger q() {
+        return group.q();
+    }
+
+    /**
+     * @return the bit length of q, the size of random exponents
+     */
+    public int qBits() {
+        return qBits;
+    }
+
+    public FixedBaseExp gExp() {
+        return gExp;
+    }
+
+    public FixedBaseExp yExp() {
+        return yExp;
+    }
+
+    /**
+     * @return the Montgomery parameters of p, shared with the fixed-base tables
+     */
+    public Montgomery montgomery() {
+        return gExp.montgomery();
+    }
+
+    /**
+     * @return the comma separated decimal representations of g and y, the common prefix of the
+     *         blank and overall proof messages
+     */
+    public String keyPrefix() {
+        return keyPrefix;
+    }
+
+    public int numQuestions() {
+        return questionSizes.length;
+    }
+
+    /**
+     * @return the number of tally cells of the given question, including the blank cell
+     */
+    public int questionSize(int question) {
+        return questionSizes[question];
+    }
+
+    public String electionHash() {
+        var hash = electionHash;
+        if (hash == null) {
+            hash = CreateBallot.createElectionHash(election);
+            electionHash = hash;
+        }
+        return hash;
+    }
+}
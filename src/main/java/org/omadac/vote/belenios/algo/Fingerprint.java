@@ -0,0 +1,27 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact 64-bit fingerprints of large integers, for use as hash table keys.
+ * <p>
+ * A fingerprint is the first 8 bytes of the SHA-256 hash of the big-endian two's complement
+ * representation. Distinct values may share a fingerprint, so a match must always be verified
+ * against the full value.
+ */
+public class Fingerprint {
+
+    public static long of(BigInteger value) {
+        return ByteBuffer.wrap(ModularChecksum.sha256().digest(value.toByteArray())).getLong();
+    }
+
+    /**
+     * @return the first 16 bytes of the SHA-256 hash as two longs, for tables which do not keep the
+     *         full values
+     */
+    public static long[] wide(BigInteger value) {
+        var hash = ByteBuffer.wrap(ModularChecksum.sha256().digest(value.toByteArray()));
+        return new long[] {hash.getLong(0), hash.getLong(Long.BYTES)};
+    }
+}
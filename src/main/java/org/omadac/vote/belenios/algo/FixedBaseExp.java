@@ -0,0 +1,142 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.omadac.vote.belenios.model.Group;
+import org.omadac.vote.belenios.model.WrappedPublicKey;
+
+/**
+ * Fixed-base exponentiation with precomputed window tables.
+ * <p>
+ * The exponent is split into windows of {@value #WINDOW} bits. For each window position i and each
+ * digit d, the table holds base^(d * 2^(WINDOW * i)) in Montgomery form, so that an exponentiation
+ * takes one Montgomery multiplication per non-zero window and no squarings.
+ * <p>
+ * Tables are built for exponents up to the bit length of the group order q and cached per base and
+ * modulus. Larger or negative exponents fall back to {@link BigInteger#modPow(BigInteger, BigInteger)}.
+ */
+public class FixedBaseExp {
+
+    private static final int WINDOW = 8;
+
+    private static final int CACHE_SIZE = 16;
+
+    private static final Map<List<BigInteger>, FixedBaseExp> CACHE = Collections
+        .synchronizedMap(new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<BigInteger>, FixedBaseExp> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+
+    private final BigInteger base;
+
+    private final Montgomery montgomery;
+
+    private final int maxBits;
+
+    private final BigInteger[][] table;
+
+    public FixedBaseExp(BigInteger base, BigInteger modulus, int maxBits) {
+        this(base, new Montgomery(modulus), maxBits);
+    }
+
+    public FixedBaseExp(BigInteger base, Montgomery montgomery, int maxBits) {
+        this.base = base;
+        this.montgomery = montgomery;
+        this.maxBits = maxBits;
+        this.table = buildTable();
+    }
+
+    public static FixedBaseExp of(BigInteger base, Group group) {
+        return CACHE.computeIfAbsent(List.of(base, group.p()),
+            key -> new FixedBaseExp(base, group.p(), group.q().bitLength()));
+    }
+
+    public static FixedBaseExp generator(Group group) {
+        return of(group.g(), group);
+    }
+
+    public static FixedBaseExp publicKey(WrappedPublicKey publicKey) {
+        return of(publicKey.y(), publicKey.group());
+    }
+
+    private BigInteger[][] buildTable() {
+        int numWindows = (maxBits + WINDOW - 1) / WINDOW;
+        int numDigits = 1 << WINDOW;
+        var result = new BigInteger[numWindows][numDigits];
+        var windowBase = montgomery.toMontgomery(base.mod(montgomery.modulus()));
+        for (int i = 0; i < numWindows; i++) {
+            result[i][1] = windowBase;
+            for (int d = 2; d < numDigits; d++) {
+                result[i][d] = montgomery.multiply(result[i][d - 1], windowBase);
+            }
+            windowBase = montgomery.multiply(result[i][numDigits - 1], windowBase);
+        }
+        return result;
+    }
+
+    public BigInteger base() {
+        return base;
+    }
+
+    public Montgomery montgomery() {
+        return montgomery;
+    }
+
+    /**
+     * @return base^exponent mod p
+     */
+    public BigInteger pow(BigInteger exponent) {
+        if (exponent.signum() < 0 || exponent.bitLength() > maxBits) {
+            return base.modPow(exponent, montgomery.modulus());
+        }
+        return montgomery.fromMontgomery(powMontgomery(exponent));
+    }
+
+    /**
+     * @return base^exponent mod p in Montgomery form, for 0 &lt;= exponent &lt; 2^maxBits
+     */
+    BigInteger powMontgomery(BigInteger exponent) {
+        var result = multiplyPow(null, exponent);
+        return (result == null) ? montgomery.one() : result;
+    }
+
+    /**
+     * Multiplies a product in Montgomery form by base^exponent.
+     *
+     * @return product * base^exponent mod p in Montgomery form
+     */
+    BigInteger multiplyPow(BigInteger product, BigInteger exponent) {
+        if (exponent.signum() < 0 || exponent.bitLength() > maxBits) {
+            var power = montgomery.toMontgomery(base.modPow(exponent, montgomery.modulus()));
+            return (product == null) ? power : montgomery.multiply(product, power);
+        }
+        var result = product;
+        for (int i = 0; i < table.length; i++) {
+            int digit = digit(exponent, i);
+            if (digit != 0) {
+                result = (result == null) ? table[i][digit] : montgomery.multiply(result, table[i][digit]);
+            }
+        }
+        return result;
+    }
+
+    private static int digit(BigInteger exponent, int window) {
+        int digit = 0;
+        int offset = window * WINDOW;
+        for (int b = 0; b < WINDOW; b++) {
+            if (exponent.testBit(offset + b)) {
+                digit |= 1 << b;
+            }
+        }
+        return digit;
+    }
+}
@@ -64,36 +64,32 @@ public class GenCredentials {
 
     public static BigInteger derive(String privateCred, String uuid, Group group) {
         var secretKey = toSecretKey(privateCred, uuid, group);
-
-        return group.g().modPow(secretKey, group.p());
-
+        return FixedBaseExp.generator(group).pow(secretKey);
     }
 
     public static String generateToken() {
-        String raw = "";
+        var raw = new StringBuilder(TOKEN_LENGTH);
         for (int i = 0; i < TOKEN_LENGTH; i++) {
             int index = GenRandomInteger.run(BASE58.length());
-            char c = BASE58.charAt(index);
-            raw += c;
+            raw.append(BASE58.charAt(index));
         }
-        return raw;
+        return raw.toString();
     }
 
     public static Credentials generate(String uuid, Group group) {
         String raw = generateToken();
 
-        String temp = raw + "1";
-        var checksum = checksum(temp);
+        var checksum = checksum(raw + "1");
         var lastChar = BASE58.charAt(checksum);
-        raw += lastChar;
 
-        String privateCred = "";
+        var builder = new StringBuilder(RAW_CREDENTIAL_LENGTH + RAW_CREDENTIAL_LENGTH / 3);
         for (int i = 0; i < RAW_CREDENTIAL_LENGTH; i++) {
             if (i > 0 && (i % 3 == 0)) {
-                privateCred += "-";
+                builder.append('-');
             }
-            privateCred += raw.charAt(i);
+            builder.append(i < TOKEN_LENGTH ? raw.charAt(i) : lastChar);
         }
+        String privateCred = builder.toString();
 
         BigInteger publicCred = derive(privateCred, uuid, group);
 
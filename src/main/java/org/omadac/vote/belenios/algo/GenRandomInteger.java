@@ -24,12 +24,18 @@ public class GenRandomInteger {
     private static SecureRandom random = new SecureRandom();
 
     public static BigInteger run(BigInteger q) {
+        return run(q, q.bitLength());
+    }
+
+    /**
+     * @param l
+     *            the bit length of q, when it is known in advance
+     */
+    public static BigInteger run(BigInteger q, int l) {
 
         // PREPARATION
         BigInteger r;
 
-        int l = q.bitLength();
-
         // ALGORITHM
         do {
             r = new BigInteger(l, random);
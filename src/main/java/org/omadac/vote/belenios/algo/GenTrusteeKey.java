@@ -46,8 +46,7 @@ public class GenTrusteeKey {
     }
 
     private static BigInteger buildChallenge(BigInteger q, BigInteger publicKey, BigInteger a) {
-        var message = String.format("pok|%s|%s", publicKey, a);
-        return ModularChecksum.checksum(message, q);
+        return Transcript.start("pok").section().add(publicKey).section().add(a).checksum(q);
     }
 
     private static String buildId(BigInteger publicKey) {
@@ -66,13 +65,14 @@ public class GenTrusteeKey {
     }
 
     public static boolean isValid(Group group, TrusteePublicKey trusteePublicKey) {
-        var c1 = group.g().modPow(trusteePublicKey.pok().response(), group.p());
-        var c2 = trusteePublicKey.publicKey()
-            .modPow(trusteePublicKey.pok().challenge(), group.p())
-            .modInverse(group.p());
-        var a = c1.multiply(c2).mod(group.p());
+        var event = ProofEvent.start("pok", -1, -1, -1);
+        long start = System.nanoTime();
+        var a = MultiExp.pow(FixedBaseExp.generator(group), trusteePublicKey.pok().response(),
+            trusteePublicKey.publicKey(), trusteePublicKey.pok().challenge().negate(), group);
         var challenge = buildChallenge(group.q(), trusteePublicKey.publicKey(), a);
-        return challenge.equals(trusteePublicKey.pok().challenge());
+        var isValid = challenge.equals(trusteePublicKey.pok().challenge());
+        Metrics.POK.record(start);
+        return event.finish(isValid);
     }
 
 }
@@ -0,0 +1,397 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.TallyCheckpoint;
+
+/**
+ * Keeps an encrypted tally of a growing ballots file, in JSON or binary format, in a checkpoint
+ * file.
+ * <p>
+ * {@link #update()} continues from the byte offset of the last checkpoint, absorbs all complete
+ * ballots appended since then and writes a new checkpoint every {@code interval} ballots and at the
+ * end. A checkpoint is replaced atomically, so after a crash the next update resumes from the last
+ * checkpoint. A trailing ballot which is still being written, i.e. a JSON line without a line break
+ * or a truncated binary record, is left for the next update.
+ * <p>
+ * The checkpoint contains a hash chain over the absorbed ballots, h = SHA-256(h' | ballot), starting
+ * from 32 zero bytes, where ballot is the JSON line or the binary record without its length. The
+ * chain does not depend on the checkpoint interval, so {@link #verify()} can check that the absorbed
+ * part of the file has not been modified.
+ * <p>
+ * Only the newest ballot of each credential is counted, like in the final tally. The checkpoint
+ * keeps the offset of the newest ballot of each credential, so that a ballot superseded by a revote
+ * is read again and divided out of the tally. Ballots with an unknown credential are skipped and
+ * counted in the checkpoint, so that they do not stop later updates.
+ */
+public class IncrementalTally {
+
+    public static final int DEFAULT_INTERVAL = 10_000;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Election election;
+
+    private final Path ballotsFile;
+
+    private final Path checkpointFile;
+
+    private final Function<BigInteger, Integer> weights;
+
+    private final int interval;
+
+    public IncrementalTally(Election election, Path ballotsFile, Path checkpointFile,
+        Function<BigInteger, Integer> weights) {
+        this(election, ballotsFile, checkpointFile, weights, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param weights
+     *            maps the public credential of a ballot to its weight, or to null for an unknown
+     *            credential
+     * @param interval
+     *            number of ballots between checkpoints
+     */
+    public IncrementalTally(Election election, Path ballotsFile, Path checkpointFile,
+        Function<BigInteger, Integer> weights, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.election = election;
+        this.ballotsFile = ballotsFile;
+        this.checkpointFile = checkpointFile;
+        this.weights = weights;
+        this.interval = interval;
+    }
+
+    /**
+     * @return the last checkpoint, or an empty tally if there is no checkpoint file
+     */
+    public TallyCheckpoint checkpoint() {
+        if (Files.exists(checkpointFile)) {
+            var checkpoint = JsonMapper.fromJson(checkpointFile.toFile(), TallyCheckpoint.class);
+            if (!checkpoint.electionUuid().equals(election.uuid())) {
+                throw new IllegalArgumentException("Checkpoint " + checkpointFile + " belongs to election "
+                    + checkpoint.electionUuid());
+            }
+            return checkpoint;
+        }
+        return TallyCheckpoint.builder()
+            .electionUuid(election.uuid())
+            .offset(0)
+            .numBallots(0)
+            .numSuperseded(0)
+            .numUnknown(0)
+            .totalWeight(0)
+            .ballotsHash(encode(new byte[32]))
+            .encryptedTally(CreateEncryptedTally.neutral(election))
+            .build();
+    }
+
+    /**
+     * Absorbs all complete ballots appended since the last checkpoint.
+     *
+     * @return the new checkpoint
+     */
+    public TallyCheckpoint update() throws IOException {
+        var event = TallyEvent.start();
+        var checkpoint = checkpoint();
+        var absorber = new Absorber(checkpoint);
+        var hash = Base64.getDecoder().decode(checkpoint.ballotsHash());
+        var digest = sha256();
+        try (var ballots = open(checkpoint.offset())) {
+            int sinceCheckpoint = 0;
+            absorber.offset = ballots.offset();
+            while (ballots.next()) {
+                ballots.parse(absorber);
+                absorber.numBallots++;
+                absorber.offset = ballots.offset();
+                hash = chain(digest, hash, ballots.bytes(), ballots.length());
+                if (++sinceCheckpoint == interval) {
+                    checkpoint = write(absorber, hash);
+                    sinceCheckpoint = 0;
+                }
+            }
+            if (sinceCheckpoint > 0 || ballots.offset() != checkpoint.offset() || !Files.exists(checkpointFile)) {
+                checkpoint = write(absorber, hash);
+            }
+            event.finish(absorber.numBallots - absorber.numBallotsBefore, absorber.accumulator.totalWeight());
+            return checkpoint;
+        } catch (UncheckedIOException exc) {
+            throw exc.getCause();
+        }
+    }
+
+    /**
+     * Re-reads the part of the ballots file covered by the last checkpoint.
+     *
+     * @return true if it matches the hash chain of the checkpoint
+     */
+    public boolean verify() throws IOException {
+        var checkpoint = checkpoint();
+        var hash = new byte[32];
+        var digest = sha256();
+        int numBallots = 0;
+        try (var ballots = open(0)) {
+            while (ballots.offset() < checkpoint.offset() && ballots.next()) {
+                hash = chain(digest, hash, ballots.bytes(), ballots.length());
+                numBallots++;
+            }
+            return ballots.offset() == checkpoint.offset() && numBallots == checkpoint.numBallots()
+                && encode(hash).equals(checkpoint.ballotsHash());
+        }
+    }
+
+    private TallyCheckpoint write(Absorber absorber, byte[] hash) throws IOException {
+        var checkpoint = TallyCheckpoint.builder()
+            .electionUuid(election.uuid())
+            .offset(absorber.offset)
+            .numBallots(absorber.numBallots)
+            .numSuperseded(absorber.numSuperseded)
+            .numUnknown(absorber.numUnknown)
+            .totalWeight(absorber.accumulator.totalWeight())
+            .ballotsHash(encode(hash))
+            .encryptedTally(absorber.accumulator.snapshot())
+            .latestOffsets(absorber.latestOffsets)
+            .build();
+        var tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        JsonMapper.INSTANCE.writeValue(tempFile.toFile(), checkpoint);
+        Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return checkpoint;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException("cannot compute digest", exc);
+        }
+    }
+
+    private static byte[] chain(MessageDigest digest, byte[] hash, byte[] ballot, int length) {
+        digest.update(hash);
+        digest.update(ballot, 0, length);
+        return digest.digest();
+    }
+
+    private static String encode(byte[] hash) {
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    private BallotSource open(long offset) throws IOException {
+        long size = Files.size(ballotsFile);
+        if (offset > size) {
+            throw new IllegalArgumentException("Ballots file " + ballotsFile + " is shorter than the checkpoint");
+        }
+        BinaryBallotHeader header = null;
+        if (BallotFiles.isBinary(ballotsFile)) {
+            try (var reader = new BinaryBallotReader(Files.newInputStream(ballotsFile))) {
+                header = reader.header();
+            }
+            offset = Math.max(offset, header.length());
+        }
+        var channel = FileChannel.open(ballotsFile, StandardOpenOption.READ).position(offset);
+        var in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+        return new BallotSource(in, offset, header);
+    }
+
+    /**
+     * Absorbs ballots into the tally, divides superseded ballots out of it and skips ballots with an
+     * unknown credential.
+     */
+    private class Absorber implements StreamingBallotParser.Handler {
+
+        private final TallyAccumulator accumulator;
+
+        private final Map<String, Long> latestOffsets;
+
+        private final int numBallotsBefore;
+
+        private int numBallots;
+
+        private int numSuperseded;
+
+        private int numUnknown;
+
+        /**
+         * Offset of the ballot being parsed, or of the end of the last ballot.
+         */
+        private long offset;
+
+        Absorber(TallyCheckpoint checkpoint) {
+            this.numBallotsBefore = checkpoint.numBallots();
+            this.numBallots = checkpoint.numBallots();
+            this.numSuperseded = checkpoint.numSuperseded();
+            this.numUnknown = checkpoint.numUnknown();
+            this.latestOffsets = new HashMap<>(checkpoint.latestOffsets());
+            this.accumulator = new TallyAccumulator(election, checkpoint.encryptedTally(),
+                numBallots - numSuperseded - numUnknown, checkpoint.totalWeight());
+        }
+
+        @Override
+        public void ballot(BigInteger publicCred, List<BigInteger> alphas, List<BigInteger> betas) {
+            var weight = weights.apply(publicCred);
+            if (weight == null) {
+                numUnknown++;
+                return;
+            }
+            var previous = latestOffsets.put(key(publicCred), offset);
+            if (previous != null) {
+                try (var superseded = open(previous)) {
+                    if (!superseded.next()) {
+                        throw new IllegalArgumentException("No ballot at offset " + previous);
+                    }
+                    superseded.parse((cred, oldAlphas, oldBetas) -> accumulator.remove(oldAlphas, oldBetas, weight));
+                } catch (IOException exc) {
+                    throw new UncheckedIOException(exc);
+                }
+                numSuperseded++;
+            }
+            accumulator.absorb(alphas, betas, weight);
+        }
+    }
+
+    private static String key(BigInteger publicCred) {
+        var fingerprint = Fingerprint.wide(publicCred);
+        var bytes = ByteBuffer.allocate(2 * Long.BYTES).putLong(fingerprint[0]).putLong(fingerprint[1]).array();
+        return encode(bytes);
+    }
+
+    /**
+     * Reads the bytes of complete ballots from a JSON or binary ballots file.
+     */
+    private static class BallotSource implements AutoCloseable {
+
+        private final InputStream in;
+
+        private final BinaryBallotHeader header;
+
+        private final BinaryBallotRecord decoder;
+
+        private final List<BigInteger> alphas = new ArrayList<>();
+
+        private final List<BigInteger> betas = new ArrayList<>();
+
+        private byte[] bytes = new byte[BUFFER_SIZE];
+
+        private int length;
+
+        private long offset;
+
+        BallotSource(InputStream in, long offset, BinaryBallotHeader header) {
+            this.in = in;
+            this.offset = offset;
+            this.header = header;
+            this.decoder = header == null ? null : new BinaryBallotRecord(header);
+        }
+
+        long offset() {
+            return offset;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        /**
+         * Reads the next complete ballot and advances the offset past it.
+         *
+         * @return false at the end of the file or before an incomplete ballot
+         */
+        boolean next() throws IOException {
+            return header == null ? nextLine() : nextRecord();
+        }
+
+        private boolean nextLine() throws IOException {
+            while (true) {
+                length = 0;
+                int b;
+                while ((b = in.read()) >= 0 && b != '\n') {
+                    ensureCapacity(length + 1);
+                    bytes[length++] = (byte) b;
+                }
+                if (b < 0) {
+                    return false;
+                }
+                offset += length + 1;
+                if (!isBlank()) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(bytes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean nextRecord() throws IOException {
+            var prefix = in.readNBytes(Integer.BYTES);
+            if (prefix.length < Integer.BYTES) {
+                return false;
+            }
+            length = ByteBuffer.wrap(prefix).getInt();
+            if (length < 0) {
+                throw new IllegalArgumentException("Invalid record length " + length);
+            }
+            ensureCapacity(length);
+            if (in.readNBytes(bytes, 0, length) < length) {
+                return false;
+            }
+            offset += Integer.BYTES + length;
+            return true;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (bytes.length < capacity) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, 2 * bytes.length));
+            }
+        }
+
+        void parse(StreamingBallotParser.Handler handler) {
+            if (header == null) {
+                StreamingBallotParser.parse(new String(bytes, 0, length, StandardCharsets.UTF_8), handler);
+            } else {
+                alphas.clear();
+                betas.clear();
+                var publicCred = decoder.choices(ByteBuffer.wrap(bytes, 0, length), alphas, betas);
+                handler.ballot(publicCred, alphas, betas);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
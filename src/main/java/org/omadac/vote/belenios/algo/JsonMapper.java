@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
@@ -13,11 +14,18 @@ public class JsonMapper {
 
     public static final ObjectMapper INSTANCE;
 
+    /**
+     * Omits null properties like Belenios does, so that serializing a parsed election reproduces the
+     * published file byte for byte.
+     */
+    public static final ObjectMapper CANONICAL;
+
     static {
         var mapper = new ObjectMapper();
         mapper.registerModule(new Jdk8Module());
         mapper.configOverride(BigInteger.class).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.STRING));
         INSTANCE = mapper;
+        CANONICAL = mapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
     }
 
     public static <T> T fromJson(String json, Class<T> klass) {
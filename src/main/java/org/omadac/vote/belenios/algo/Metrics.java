@@ -0,0 +1,334 @@
+package org.omadac.vote.belenios.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms of the hot paths.
+ * <p>
+ * Counters are {@link LongAdder}s, so concurrent updates do not contend. A timer is a histogram
+ * with one counter per power of two nanoseconds. Recording a duration costs two calls of
+ * {@link System#nanoTime()} and two additions, which is negligible compared to a single modular
+ * exponentiation, so the metrics are always on.
+ * <p>
+ * The metrics can be exported in the Prometheus text format or as a human readable summary.
+ */
+public class Metrics {
+
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+
+    private static final List<Timer> TIMERS = new ArrayList<>();
+
+    public static final Timer INTERVAL_PROOF = proofTimer("interval");
+
+    public static final Timer BLANK_PROOF = proofTimer("blank");
+
+    public static final Timer OVERALL_PROOF = proofTimer("overall");
+
+    public static final Timer SIGNATURE = proofTimer("signature");
+
+    public static final Timer DECRYPTION_PROOF = proofTimer("decryption");
+
+    public static final Timer POK = proofTimer("pok");
+
+    public static final Timer BALLOT_CREATION = timer("belenios_ballot_creation_seconds", "",
+        "Time to create a ballot with all proofs");
+
+    public static final Timer DISCRETE_LOG = timer("belenios_discrete_log_seconds", "",
+        "Time to compute the discrete log of a decrypted tally cell");
+
+    public static final Counter BALLOTS_VERIFIED = counter("belenios_ballots_verified_total",
+        "Ballots verified, accepted or rejected");
+
+    public static final Counter BALLOTS_REJECTED = counter("belenios_ballots_rejected_total",
+        "Ballots rejected by verification");
+
+    public static final Counter BALLOTS_TALLIED = counter("belenios_ballots_tallied_total",
+        "Ballots absorbed into an encrypted tally");
+
+    public static final Counter TALLY_CELLS = counter("belenios_tally_cells_total",
+        "Ciphertexts multiplied into an encrypted tally");
+
+    public static final Counter BYTES_PARSED = counter("belenios_parsed_bytes_total",
+        "Bytes of ballots parsed, in JSON or binary format");
+
+    public static final Counter BYTES_HASHED = counter("belenios_hashed_bytes_total",
+        "Bytes of Fiat-Shamir transcripts hashed");
+
+    public static final Counter REJECTED_STRUCTURE = admissionCounter("structure");
+
+    public static final Counter REJECTED_ELECTION = admissionCounter("election");
+
+    public static final Counter REJECTED_RANGE = admissionCounter("range");
+
+    public static final Counter REJECTED_CREDENTIAL = admissionCounter("credential");
+
+    public static final Counter REJECTED_DUPLICATE = admissionCounter("duplicate");
+
+    public static final Counter REJECTED_SUBGROUP = admissionCounter("subgroup");
+
+    public static final Counter REJECTED_PROOFS = admissionCounter("proofs");
+
+    private static volatile long startNanos = System.nanoTime();
+
+    private Metrics() {
+    }
+
+    private static Timer proofTimer(String proof) {
+        return timer("belenios_proof_verification_seconds", "proof=\"" + proof + "\"",
+            "Time to verify a single proof");
+    }
+
+    private static synchronized Timer timer(String name, String labels, String help) {
+        var timer = new Timer(name, labels, help);
+        TIMERS.add(timer);
+        return timer;
+    }
+
+    private static Counter admissionCounter(String stage) {
+        return counter("belenios_admission_rejected_total", "stage=\"" + stage + "\"",
+            "Ballots rejected by a stage of the admission filter");
+    }
+
+    private static Counter counter(String name, String help) {
+        return counter(name, "", help);
+    }
+
+    private static synchronized Counter counter(String name, String labels, String help) {
+        var counter = new Counter(name, labels, help);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    public static class Counter {
+
+        private final String name;
+
+        private final String labels;
+
+        private final String help;
+
+        private final LongAdder count = new LongAdder();
+
+        Counter(String name, String labels, String help) {
+            this.name = name;
+            this.labels = labels;
+            this.help = help;
+        }
+
+        private String labeledName() {
+            return labels.isEmpty() ? name : name + "{" + labels + "}";
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+    }
+
+    public static class Timer {
+
+        static final int BUCKETS = 64;
+
+        private final String name;
+
+        private final String labels;
+
+        private final String help;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Timer(String name, String labels, String help) {
+            this.name = name;
+            this.labels = labels;
+            this.help = help;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records the time elapsed since the given start.
+         *
+         * @param start
+         *            a value of {@link System#nanoTime()}
+         */
+        public void record(long start) {
+            recordNanos(System.nanoTime() - start);
+        }
+
+        public void recordNanos(long nanos) {
+            nanos = Math.max(nanos, 0);
+            buckets[bucket(nanos)].increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        /**
+         * Bucket i holds durations in [2^(i-1), 2^i) nanoseconds, bucket 0 holds zero durations.
+         */
+        static int bucket(long nanos) {
+            return Long.SIZE - Long.numberOfLeadingZeros(nanos);
+        }
+
+        public long count() {
+            long count = 0;
+            for (LongAdder bucket: buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        public long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long maxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * @return an upper bound of the given quantile, accurate to a factor of two
+         */
+        public long quantileNanos(double quantile) {
+            long[] counts = counts();
+            long count = 0;
+            for (long c: counts) {
+                count += c;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return Math.min(upperBound(i), maxNanos());
+                }
+            }
+            return 0;
+        }
+
+        private long[] counts() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return counts;
+        }
+
+        private static long upperBound(int bucket) {
+            return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        }
+
+        private void reset() {
+            for (LongAdder bucket: buckets) {
+                bucket.reset();
+            }
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+    /**
+     * Resets all metrics and the start time used for rates.
+     */
+    public static synchronized void reset() {
+        COUNTERS.forEach(counter -> counter.count.reset());
+        TIMERS.forEach(Timer::reset);
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return all metrics in the Prometheus text exposition format
+     */
+    public static synchronized String prometheus() {
+        var text = new StringBuilder();
+        String previous = null;
+        for (Counter counter: COUNTERS) {
+            if (!counter.name.equals(previous)) {
+                text.append("# HELP ").append(counter.name).append(' ').append(counter.help).append('\n');
+                text.append("# TYPE ").append(counter.name).append(" counter\n");
+                previous = counter.name;
+            }
+            text.append(counter.labeledName()).append(' ').append(counter.count()).append('\n');
+        }
+        for (Timer timer: TIMERS) {
+            if (!timer.name.equals(previous)) {
+                text.append("# HELP ").append(timer.name).append(' ').append(timer.help).append('\n');
+                text.append("# TYPE ").append(timer.name).append(" histogram\n");
+                previous = timer.name;
+            }
+            var labels = timer.labels.isEmpty() ? "" : timer.labels + ",";
+            long[] counts = timer.counts();
+            int last = Math.min(lastNonEmpty(counts), Timer.BUCKETS - 2);
+            long cumulative = 0;
+            for (int i = 0; i <= last; i++) {
+                cumulative += counts[i];
+                text.append(timer.name).append("_bucket{").append(labels).append("le=\"")
+                    .append(seconds(Timer.upperBound(i))).append("\"} ").append(cumulative).append('\n');
+            }
+            text.append(timer.name).append("_bucket{").append(labels).append("le=\"+Inf\"} ")
+                .append(cumulative).append('\n');
+            var suffix = timer.labels.isEmpty() ? " " : "{" + timer.labels + "} ";
+            text.append(timer.name).append("_sum").append(suffix).append(seconds(timer.totalNanos())).append('\n');
+            text.append(timer.name).append("_count").append(suffix).append(cumulative).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static int lastNonEmpty(long[] counts) {
+        int last = counts.length - 1;
+        while (last >= 0 && counts[last] == 0) {
+            last--;
+        }
+        return last;
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    /**
+     * @return one line per metric that has been updated since the start or the last reset
+     */
+    public static synchronized String summary() {
+        double elapsed = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        var text = new StringBuilder();
+        for (Timer timer: TIMERS) {
+            long count = timer.count();
+            if (count == 0) {
+                continue;
+            }
+            var name = timer.labels.isEmpty() ? timer.name : timer.name + "{" + timer.labels + "}";
+            text.append(String.format(Locale.ROOT, "%-60s %10d  mean %s  p50 %s  p99 %s  max %s%n", name, count,
+                millis(timer.totalNanos() / count), millis(timer.quantileNanos(0.5)),
+                millis(timer.quantileNanos(0.99)), millis(timer.maxNanos())));
+        }
+        for (Counter counter: COUNTERS) {
+            long count = counter.count();
+            if (count == 0) {
+                continue;
+            }
+            text.append(String.format(Locale.ROOT, "%-60s %10d  %.1f/s%n", counter.labeledName(), count,
+                count / elapsed));
+        }
+        return text.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+    }
+}
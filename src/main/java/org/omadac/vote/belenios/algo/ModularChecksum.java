@@ -7,14 +7,27 @@ import java.security.NoSuchAlgorithmException;
 
 public class ModularChecksum {
 
-    public static BigInteger checksum(String message, BigInteger modulus) {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
         try {
-            var digest = MessageDigest.getInstance("SHA-256");
-            var encodedhash = digest.digest(message.toString().getBytes(StandardCharsets.UTF_8));
-            var checksum = new BigInteger(1, encodedhash).mod(modulus);
-            return checksum;
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException exc) {
             throw new IllegalArgumentException(exc);
         }
+    });
+
+    public static BigInteger checksum(String message, BigInteger modulus) {
+        var bytes = message.getBytes(StandardCharsets.UTF_8);
+        Metrics.BYTES_HASHED.add(bytes.length);
+        var encodedhash = sha256().digest(bytes);
+        var checksum = new BigInteger(1, encodedhash).mod(modulus);
+        return checksum;
+    }
+
+    /**
+     * @return a SHA-256 digest owned by the calling thread, to be used only for complete
+     *         {@link MessageDigest#digest(byte[])} calls
+     */
+    static MessageDigest sha256() {
+        return SHA_256.get();
     }
 }
@@ -0,0 +1,71 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+
+/**
+ * Montgomery arithmetic modulo an odd modulus p, with R = 2^k and k the bit length of p.
+ * <p>
+ * {@link BigInteger#mod(BigInteger)} performs a full long division, which costs several times a
+ * multiplication. A Montgomery reduction replaces this division by two multiplications and a shift.
+ */
+public class Montgomery {
+
+    private final BigInteger modulus;
+
+    private final int bits;
+
+    private final BigInteger mask;
+
+    private final BigInteger factor;
+
+    private final BigInteger one;
+
+    public Montgomery(BigInteger modulus) {
+        if (!modulus.testBit(0)) {
+            throw new IllegalArgumentException("modulus must be odd");
+        }
+        this.modulus = modulus;
+        this.bits = modulus.bitLength();
+        var r = BigInteger.ONE.shiftLeft(bits);
+        this.mask = r.subtract(BigInteger.ONE);
+        this.factor = modulus.modInverse(r).negate().mod(r);
+        this.one = r.mod(modulus);
+    }
+
+    public BigInteger modulus() {
+        return modulus;
+    }
+
+    /**
+     * @return the Montgomery representation of 1, i.e. R mod p
+     */
+    public BigInteger one() {
+        return one;
+    }
+
+    public BigInteger toMontgomery(BigInteger x) {
+        return x.shiftLeft(bits).mod(modulus);
+    }
+
+    public BigInteger fromMontgomery(BigInteger x) {
+        return reduce(x);
+    }
+
+    /**
+     * @return x * y / R mod p
+     */
+    public BigInteger multiply(BigInteger x, BigInteger y) {
+        return reduce(x.multiply(y));
+    }
+
+    /**
+     * Montgomery reduction of t &lt; p * R.
+     *
+     * @return t / R mod p
+     */
+    public BigInteger reduce(BigInteger t) {
+        var m = t.and(mask).multiply(factor).and(mask);
+        var u = t.add(m.multiply(modulus)).shiftRight(bits);
+        return (u.compareTo(modulus) >= 0) ? u.subtract(modulus) : u;
+    }
+}
@@ -0,0 +1,117 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+
+import org.omadac.vote.belenios.model.Group;
+
+/**
+ * Evaluates products of powers like g^r * alpha^(-c) mod p in a single accumulator.
+ * <p>
+ * Fixed bases are trusted elements of the subgroup of order q, so that their exponents are reduced
+ * modulo q and a negative exponent -c is evaluated as q - c, without the modular inverse of the naive
+ * formula. Variable bases are taken from ballots and decryption shares and may lie outside the
+ * subgroup, so that their exponents are used as given and a negative exponent costs a modular
+ * inverse. Reducing them modulo q would change the result for such elements, e.g. for -g^r. Once
+ * the membership of all variable bases has been checked, e.g. by the subgroup stage of a
+ * {@link BallotAdmission}, a product created by {@link #ofMembers(Group)} reduces their exponents
+ * as well.
+ * <p>
+ * Powers of fixed bases are multiplied into a Montgomery form accumulator directly from their window
+ * tables. Powers of variable bases are computed with {@link BigInteger#modPow(BigInteger, BigInteger)},
+ * which uses the intrinsic Montgomery multiplication of the JDK and is faster for full-size exponents
+ * than an interleaved square-and-multiply loop built on top of {@link BigInteger}. The two partial
+ * products are joined by a single Montgomery reduction.
+ */
+public class MultiExp {
+
+    private final Montgomery montgomery;
+
+    private final BigInteger order;
+
+    private final boolean members;
+
+    private BigInteger fixedProduct;
+
+    private BigInteger variableProduct;
+
+    public MultiExp(Montgomery montgomery, BigInteger order) {
+        this(montgomery, order, false);
+    }
+
+    private MultiExp(Montgomery montgomery, BigInteger order, boolean members) {
+        this.montgomery = montgomery;
+        this.order = order;
+        this.members = members;
+    }
+
+    public static MultiExp of(Group group) {
+        return new MultiExp(FixedBaseExp.generator(group).montgomery(), group.q(), false);
+    }
+
+    /**
+     * Returns a product whose variable bases are known to be elements of the subgroup of order q, so
+     * that their exponents are reduced modulo q like the ones of fixed bases.
+     */
+    public static MultiExp ofMembers(Group group) {
+        return new MultiExp(FixedBaseExp.generator(group).montgomery(), group.q(), true);
+    }
+
+    /**
+     * @param members
+     *            true if all variable bases are known to be elements of the subgroup of order q
+     */
+    public static MultiExp of(Group group, boolean members) {
+        return members ? ofMembers(group) : of(group);
+    }
+
+    /**
+     * Multiplies the product by base^exponent for a base with a precomputed table.
+     */
+    public MultiExp fixed(FixedBaseExp base, BigInteger exponent) {
+        fixedProduct = base.multiplyPow(fixedProduct, exponent.mod(order));
+        return this;
+    }
+
+    /**
+     * Multiplies the product by base^exponent for an arbitrary unit mod p. Unless this product was
+     * created by {@link #ofMembers(Group)}, the exponent is not reduced, since the base need not be
+     * an element of the subgroup.
+     */
+    public MultiExp variable(BigInteger base, BigInteger exponent) {
+        var p = montgomery.modulus();
+        var power = base.modPow(members ? exponent.mod(order) : exponent, p);
+        variableProduct = (variableProduct == null) ? power : variableProduct.multiply(power).mod(p);
+        return this;
+    }
+
+    /**
+     * @return the product of all powers mod p
+     */
+    public BigInteger result() {
+        if (fixedProduct == null) {
+            return (variableProduct == null) ? BigInteger.ONE : variableProduct;
+        }
+        if (variableProduct == null) {
+            return montgomery.fromMontgomery(fixedProduct);
+        }
+        return montgomery.multiply(fixedProduct, variableProduct);
+    }
+
+    /**
+     * @return fixed^fixedExponent * base^exponent mod p
+     */
+    public static BigInteger pow(FixedBaseExp fixed, BigInteger fixedExponent, BigInteger base,
+        BigInteger exponent, Group group) {
+        return of(group).fixed(fixed, fixedExponent).variable(base, exponent).result();
+    }
+
+    /**
+     * @param members
+     *            true if the base is known to be an element of the subgroup of order q
+     * @return fixed^fixedExponent * base^exponent mod p
+     */
+    public static BigInteger pow(FixedBaseExp fixed, BigInteger fixedExponent, BigInteger base,
+        BigInteger exponent, Group group, boolean members) {
+        return of(group, members).fixed(fixed, fixedExponent).variable(base, exponent).result();
+    }
+}
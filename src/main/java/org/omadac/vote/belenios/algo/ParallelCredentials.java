@@ -0,0 +1,88 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.omadac.vote.belenios.model.Credentials;
+import org.omadac.vote.belenios.model.Group;
+
+/**
+ * Generates credentials for a sequence of voter ids on multiple threads.
+ * <p>
+ * The ids are read in chunks, and each chunk is generated by a worker thread. The results are passed
+ * to a {@link Sink} on the calling thread in input order. At most a fixed number of chunks per
+ * thread are pending, so memory use does not depend on the number of ids.
+ */
+public class ParallelCredentials {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private static final int CHUNKS_PER_THREAD = 2;
+
+    @FunctionalInterface
+    public interface Sink {
+
+        void accept(String id, Credentials credentials) throws IOException;
+    }
+
+    public static void generate(String uuid, Group group, Iterator<String> ids, int threads, Sink sink)
+        throws IOException, InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Deque<Future<List<Credentials>>> pending = new ArrayDeque<>();
+            Deque<List<String>> pendingIds = new ArrayDeque<>();
+            while (ids.hasNext()) {
+                List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (chunk.size() < CHUNK_SIZE && ids.hasNext()) {
+                    chunk.add(ids.next());
+                }
+                pendingIds.add(chunk);
+                pending.add(executor.submit(() -> generate(uuid, group, chunk.size())));
+                if (pending.size() >= CHUNKS_PER_THREAD * threads) {
+                    emit(pendingIds.remove(), pending.remove(), sink);
+                }
+            }
+            while (!pending.isEmpty()) {
+                emit(pendingIds.remove(), pending.remove(), sink);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Credentials> generate(String uuid, Group group, int count) {
+        List<Credentials> credentials = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            credentials.add(GenCredentials.generate(uuid, group));
+        }
+        return credentials;
+    }
+
+    private static void emit(List<String> ids, Future<List<Credentials>> future, Sink sink)
+        throws IOException, InterruptedException {
+        List<Credentials> credentials;
+        try {
+            credentials = future.get();
+        } catch (ExecutionException exc) {
+            var cause = exc.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            sink.accept(ids.get(i), credentials.get(i));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.omadac.vote.belenios.model.Election;
+
+/**
+ * Tallies a {@code ballots.jsons} file or a binary ballot file on multiple threads.
+ * <p>
+ * The file is split into byte ranges which start and end at line boundaries, or at record boundaries
+ * for a binary file. Each range is parsed and tallied into its own {@link TallyAccumulator}, and the
+ * partial tallies are merged homomorphically in file order.
+ */
+public class ParallelTally {
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    /**
+     * @param weights
+     *            maps the public credential of a ballot to its weight, or to null for an unknown
+     *            credential
+     */
+    public static TallyAccumulator tallyWeighted(Election election, Path ballotsFile,
+        Function<BigInteger, Integer> weights, int threads) throws IOException, InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (BallotFiles.isBinary(ballotsFile)) {
+            return tallyBinary(election, ballotsFile, weights, threads);
+        }
+        try (var channel = FileChannel.open(ballotsFile, StandardOpenOption.READ)) {
+            var boundaries = partition(channel, threads);
+            List<Callable<TallyAccumulator>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                long start = boundaries.get(i);
+                long end = boundaries.get(i + 1);
+                tasks.add(() -> CreateEncryptedTally.tallyWeighted(election,
+                    new RangeInputStream(channel, start, end), weights));
+            }
+            return merge(election, tasks);
+        }
+    }
+
+    /**
+     * Tallies only the newest ballot of each credential of a JSON or binary ballot file.
+     * <p>
+     * A binary file is read through a {@link BallotArchive}, so that superseded ballots are not read
+     * at all, and the newest ballots are split evenly among the threads. A JSON file without
+     * superseded ballots is tallied like {@link #tallyWeighted(Election, Path, Function, int)}. A JSON
+     * file with superseded ballots is tallied on the calling thread, since the ordinals of a range of
+     * lines are not known in advance.
+     *
+     * @param revotes
+     *            index of the ballots in the file, see {@link RevoteIndex#build(Path)}
+     */
+    public static TallyAccumulator tallyLatest(Election election, Path ballotsFile,
+        Function<BigInteger, Integer> weights, RevoteIndex revotes, int threads)
+        throws IOException, InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (BallotFiles.isBinary(ballotsFile)) {
+            try (var archive = BallotArchive.open(ballotsFile)) {
+                return tallyLatest(election, archive, weights, revotes, threads);
+            }
+        }
+        if (revotes.numSuperseded() == 0) {
+            return tallyWeighted(election, ballotsFile, weights, threads);
+        }
+        try (var in = Files.newInputStream(ballotsFile)) {
+            return CreateEncryptedTally.tallyLatest(election, in, weights, revotes);
+        }
+    }
+
+    /**
+     * Tallies the newest ballot of each credential of an archive.
+     */
+    public static TallyAccumulator tallyLatest(Election election, BallotArchive archive,
+        Function<BigInteger, Integer> weights, RevoteIndex revotes, int threads)
+        throws IOException, InterruptedException {
+        var ordinals = revotes.latestOrdinals();
+        int numParts = Math.max(1, Math.min(threads, ordinals.length));
+        List<Callable<TallyAccumulator>> tasks = new ArrayList<>();
+        for (int i = 0; i < numParts; i++) {
+            int from = (int) ((long) ordinals.length * i / numParts);
+            int to = (int) ((long) ordinals.length * (i + 1) / numParts);
+            tasks.add(() -> tallyRecords(election, archive, weights, ordinals, from, to));
+        }
+        return merge(election, tasks);
+    }
+
+    private static TallyAccumulator tallyRecords(Election election, BallotArchive archive,
+        Function<BigInteger, Integer> weights, int[] ordinals, int from, int to) {
+        var event = TallyEvent.start();
+        var accumulator = new TallyAccumulator(election);
+        var handler = CreateEncryptedTally.weightedHandler(accumulator, weights);
+        var decoder = new BinaryBallotRecord(archive.header());
+        List<BigInteger> alphas = new ArrayList<>();
+        List<BigInteger> betas = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            alphas.clear();
+            betas.clear();
+            var publicCred = decoder.choices(archive.record(ordinals[i]), alphas, betas);
+            handler.ballot(publicCred, alphas, betas);
+        }
+        event.finish(accumulator.numBallots(), accumulator.totalWeight());
+        return accumulator;
+    }
+
+    private static TallyAccumulator tallyBinary(Election election, Path ballotsFile,
+        Function<BigInteger, Integer> weights, int threads) throws IOException, InterruptedException {
+        BinaryBallotHeader header;
+        try (var reader = new BinaryBallotReader(Files.newInputStream(ballotsFile))) {
+            header = reader.header();
+        }
+        try (var channel = FileChannel.open(ballotsFile, StandardOpenOption.READ)) {
+            var boundaries = partitionRecords(channel, header.length(), threads);
+            List<Callable<TallyAccumulator>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                long start = boundaries.get(i);
+                long end = boundaries.get(i + 1);
+                tasks.add(() -> CreateEncryptedTally.tallyWeighted(election,
+                    new BinaryBallotReader(new RangeInputStream(channel, start, end), header), weights));
+            }
+            return merge(election, tasks);
+        }
+    }
+
+    private static TallyAccumulator merge(Election election, List<Callable<TallyAccumulator>> tasks)
+        throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            var tally = new TallyAccumulator(election);
+            for (Future<TallyAccumulator> future: executor.invokeAll(tasks)) {
+                tally.merge(future.get());
+            }
+            return tally;
+        } catch (ExecutionException exc) {
+            var cause = exc.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the file into at most {@code numParts} ranges of roughly equal size.
+     *
+     * @return start offsets of all ranges, followed by the file size
+     */
+    static List<Long> partition(FileChannel channel, int numParts) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        for (int i = 1; i < numParts; i++) {
+            long previous = boundaries.get(boundaries.size() - 1);
+            long boundary = nextLineStart(channel, Math.max(previous, size * i / numParts));
+            if (boundary > previous && boundary < size) {
+                boundaries.add(boundary);
+            }
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    /**
+     * Splits the records of a binary ballot file into at most {@code numParts} ranges of roughly equal
+     * size by following the record lengths.
+     *
+     * @return start offsets of all ranges, followed by the file size
+     */
+    static List<Long> partitionRecords(FileChannel channel, long headerLength, int numParts)
+        throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(headerLength);
+        var lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+        long position = headerLength;
+        int part = 1;
+        while (position < size && part < numParts) {
+            lengthBuffer.clear();
+            if (channel.read(lengthBuffer, position) != Integer.BYTES) {
+                throw new IllegalArgumentException("Truncated ballot record");
+            }
+            position += Integer.BYTES + Integer.toUnsignedLong(lengthBuffer.getInt(0));
+            if (position >= headerLength + (size - headerLength) * part / numParts && position < size) {
+                boundaries.add(position);
+                part++;
+            }
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long offset = position - 1;
+        while (true) {
+            buffer.clear();
+            int n = channel.read(buffer, offset);
+            if (n <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += n;
+        }
+    }
+
+    /**
+     * Reads a byte range of a file channel using positional reads, so that several streams can share
+     * the channel.
+     */
+    private static class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n <= 0) {
+                return -1;
+            }
+            position += n;
+            return n;
+        }
+    }
+}
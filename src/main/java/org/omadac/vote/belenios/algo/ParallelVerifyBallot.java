@@ -0,0 +1,259 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.RejectedBallot;
+import org.omadac.vote.belenios.model.VerificationReport;
+
+/**
+ * Verifies ballots on a bounded fork/join pool.
+ * <p>
+ * Each ballot is split into one task per individual proof, one task per overall (and blank) proof
+ * and one task for the signature, so that idle workers can steal proofs of a ballot with many
+ * questions. The calling thread reads the ballot stream and blocks once a bounded number of ballots
+ * is in flight.
+ */
+public class ParallelVerifyBallot implements AutoCloseable {
+
+    private static final int BALLOTS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    private final int maxInFlight;
+
+    public ParallelVerifyBallot(int threads) {
+        this.pool = new ForkJoinPool(threads);
+        this.maxInFlight = BALLOTS_PER_THREAD * threads;
+    }
+
+    public static VerificationReport verify(Election election, Stream<Ballot> ballots, int threads) {
+        try (var verifier = new ParallelVerifyBallot(threads)) {
+            return verifier.verify(election, ballots);
+        }
+    }
+
+    public static VerificationReport verify(Election election, Stream<Ballot> ballots,
+        Predicate<BigInteger> knownCredentials, int threads) {
+        try (var verifier = new ParallelVerifyBallot(threads)) {
+            return verifier.verify(election, ballots, knownCredentials);
+        }
+    }
+
+    public static VerificationReport verify(ElectionContext context, Stream<Ballot> ballots,
+        Predicate<BigInteger> knownCredentials, int threads) {
+        try (var verifier = new ParallelVerifyBallot(threads)) {
+            return verifier.verify(context, ballots, knownCredentials);
+        }
+    }
+
+    public VerificationReport verify(Election election, Stream<Ballot> ballots) {
+        return verify(election, ballots, publicCred -> true);
+    }
+
+    public VerificationReport verify(Election election, Stream<Ballot> ballots,
+        Predicate<BigInteger> knownCredentials) {
+        return verify(ElectionContext.of(election), ballots, knownCredentials);
+    }
+
+    /**
+     * Verifies all ballots. Ballots failing the cheap stages of a {@link BallotAdmission}, such as
+     * malformed ballots, ballots for another election, with an unknown public credential or
+     * duplicates of an earlier ballot, are rejected on the calling thread, without any
+     * exponentiation. The subgroup membership of the elements of a ballot is checked by its task,
+     * before its proofs.
+     * <p>
+     * A ballot with invalid proofs is forgotten by the admission, so that a later valid ballot with
+     * the same signature challenge is not a duplicate. To keep the verdicts independent of the
+     * scheduling, a ballot whose challenge is still being verified waits for that verification
+     * before it is screened.
+     */
+    public VerificationReport verify(ElectionContext context, Stream<Ballot> ballots,
+        Predicate<BigInteger> knownCredentials) {
+        var admission = new BallotAdmission(context, knownCredentials);
+        var permits = new Semaphore(maxInFlight);
+        Map<Integer, String> rejected = new ConcurrentHashMap<>();
+        Map<BigInteger, BallotTask> inFlight = new ConcurrentHashMap<>();
+
+        int numBallots = 0;
+        Iterator<Ballot> it = ballots.iterator();
+        while (it.hasNext()) {
+            var ballot = it.next();
+            var challenge = challenge(ballot);
+            var pending = (challenge == null) ? null : inFlight.get(challenge);
+            if (pending != null) {
+                pending.join();
+            }
+            var reason = admission.screen(ballot);
+            if (reason != null) {
+                rejected.put(numBallots++, reason);
+                continue;
+            }
+            permits.acquireUninterruptibly();
+            var task = new BallotTask(numBallots, ballot, admission, rejected, inFlight, permits);
+            inFlight.put(challenge, task);
+            pool.execute(task);
+            numBallots++;
+        }
+        permits.acquireUninterruptibly(maxInFlight);
+
+        var builder = VerificationReport.builder().numBallots(numBallots);
+        new TreeMap<>(rejected).forEach((index, reason) -> builder
+            .addRejected(RejectedBallot.builder().index(index).reason(reason).build()));
+        for (int index = 0; index < numBallots; index++) {
+            if (!rejected.containsKey(index)) {
+                builder.addAccepted(index);
+            }
+        }
+        return builder.build();
+    }
+
+    private static BigInteger challenge(Ballot ballot) {
+        return (ballot.signature() == null) ? null : ballot.signature().challenge();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static class BallotTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+        private final Ballot ballot;
+        private final BallotAdmission admission;
+        private final ElectionContext context;
+        private final Map<Integer, String> rejected;
+        private final Map<BigInteger, BallotTask> inFlight;
+        private final Semaphore permits;
+
+        BallotTask(int index, Ballot ballot, BallotAdmission admission, Map<Integer, String> rejected,
+            Map<BigInteger, BallotTask> inFlight, Semaphore permits) {
+            this.index = index;
+            this.ballot = ballot;
+            this.admission = admission;
+            this.context = admission.context();
+            this.rejected = rejected;
+            this.inFlight = inFlight;
+            this.permits = permits;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                var reason = VerifyBallot.checkSubgroup(ballot, context);
+                if (reason != null) {
+                    admission.forget(ballot);
+                    rejected.put(index, BallotAdmission.reject(BallotAdmission.Stage.SUBGROUP, reason));
+                    return;
+                }
+                var event = BallotEvent.start("verify", index);
+                reason = check();
+                event.finish(reason == null);
+                Metrics.BALLOTS_VERIFIED.increment();
+                if (reason != null) {
+                    Metrics.BALLOTS_REJECTED.increment();
+                    admission.forget(ballot);
+                    rejected.put(index, BallotAdmission.reject(BallotAdmission.Stage.PROOFS, reason));
+                }
+            } catch (RuntimeException exc) {
+                admission.forget(ballot);
+                rejected.put(index, "malformed ballot: " + exc);
+            } finally {
+                inFlight.remove(ballot.signature().challenge(), this);
+                permits.release();
+            }
+        }
+
+        private String check() {
+            var questions = context.election().questions();
+            var publicCred = ballot.signature().publicKey();
+            List<ProofTask> tasks = new ArrayList<>();
+            for (int i = 0; i < questions.size(); i++) {
+                var question = questions.get(i);
+                var answer = ballot.answers().get(i);
+                for (int j = 0; j < answer.choices().size(); j++) {
+                    var choice = answer.choices().get(j);
+                    var proofs = answer.individualProofs().get(j);
+                    tasks.add(new ProofTask("invalid individual proof for question " + i + ", choice " + j,
+                        "interval", index, i, j,
+                        () -> VerifyBallot.verifyIntervalProof(context, publicCred, choice, 0, 1, proofs, true)));
+                }
+                if (question.blankAnswerAllowed()) {
+                    int questionIndex = i;
+                    tasks.add(new ProofTask("invalid blank or overall proof for question " + i, null, index, i, -1,
+                        () -> VerifyBallot.verifyBlankAndOverallProof(answer, publicCred, context, index,
+                            questionIndex)));
+                } else {
+                    tasks.add(new ProofTask("invalid overall proof for question " + i, "overall", index, i, -1,
+                        () -> VerifyBallot.verifyNonBlankOverallProof(answer, publicCred, context, question)));
+                }
+            }
+            tasks.add(new ProofTask("invalid signature", "signature", index, -1, -1,
+                () -> VerifyBallot.verifySignature(ballot.signature(), ballot.answers(), context, true)));
+
+            ForkJoinTask.invokeAll(tasks);
+            for (ProofTask task: tasks) {
+                if (task.join() != null) {
+                    return task.join();
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class ProofTask extends RecursiveTask<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String reason;
+        private final String kind;
+        private final int ballot;
+        private final int question;
+        private final int choice;
+        private final transient Supplier<Boolean> check;
+
+        /**
+         * @param kind
+         *            proof kind of the {@link ProofEvent}, or null if the check records its own events
+         */
+        ProofTask(String reason, String kind, int ballot, int question, int choice, Supplier<Boolean> check) {
+            this.reason = reason;
+            this.kind = kind;
+            this.ballot = ballot;
+            this.question = question;
+            this.choice = choice;
+            this.check = check;
+        }
+
+        @Override
+        protected String compute() {
+            try {
+                if (kind == null) {
+                    return check.get() ? null : reason;
+                }
+                var event = ProofEvent.start(kind, ballot, question, choice);
+                return event.finish(check.get()) ? null : reason;
+            } catch (RuntimeException exc) {
+                return "malformed ballot: " + exc;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.graalvm.collections.Pair;
+import org.omadac.vote.belenios.model.Ciphertext;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.Group;
+import org.omadac.vote.belenios.model.PartialDecryption;
+import org.omadac.vote.belenios.model.Proof;
+import org.omadac.vote.belenios.model.TrusteeKeyPair;
+
+/**
+ * Computes the decryption factors and proofs of one trustee for all cells of an encrypted tally.
+ * <p>
+ * The per-trustee state (private key, public key, fixed-base table for g) is prepared once. The
+ * cells are independent and are decrypted in parallel.
+ * <p>
+ * The commitment g^w uses the fixed-base table. The factor alpha^x and the commitment alpha^w have a
+ * different base for every cell. A precomputed addition chain or window recoding of the fixed
+ * exponent x would have to be evaluated with {@link BigInteger} multiplications, which are several
+ * times slower than the intrinsic Montgomery multiplication inside {@link BigInteger#modPow}, so
+ * both stay on {@code modPow}.
+ */
+public class PartialDecryptionEngine {
+
+    private final Group group;
+
+    private final BigInteger privateKey;
+
+    private final BigInteger publicKey;
+
+    private final FixedBaseExp gExp;
+
+    private final int qBits;
+
+    public PartialDecryptionEngine(Election election, TrusteeKeyPair keyPair) {
+        this(ElectionContext.of(election), keyPair);
+    }
+
+    public PartialDecryptionEngine(ElectionContext context, TrusteeKeyPair keyPair) {
+        this.group = context.group();
+        this.privateKey = keyPair.privateKey();
+        this.publicKey = keyPair.trusteePublicKey().publicKey();
+        this.gExp = context.gExp();
+        this.qBits = context.qBits();
+    }
+
+    /**
+     * @return the decryption factor alpha^x and a proof of log_g(y) = log_alpha(alpha^x)
+     */
+    public Pair<BigInteger, Proof> decrypt(Ciphertext ct) {
+        var p = group.p();
+        var q = group.q();
+        var factor = ct.alpha().modPow(privateKey, p);
+
+        var w = GenRandomInteger.run(q, qBits);
+        var a = gExp.pow(w);
+        var b = ct.alpha().modPow(w, p);
+
+        var challenge = Transcript.start("decrypt")
+            .section().add(publicKey)
+            .section().add(a).add(b)
+            .checksum(q);
+        var response = challenge.multiply(privateKey).add(w).mod(p);
+        var proof = Proof.builder().challenge(challenge).response(response).build();
+        return Pair.create(factor, proof);
+    }
+
+    public PartialDecryption decrypt(List<List<Ciphertext>> encryptedTally, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        List<Pair<BigInteger, Proof>> cells = threads == 1
+            ? decryptSequential(encryptedTally)
+            : decryptParallel(encryptedTally, threads);
+
+        var builder = PartialDecryption.builder();
+        int cell = 0;
+        for (List<Ciphertext> question: encryptedTally) {
+            List<BigInteger> factors = new ArrayList<>(question.size());
+            List<Proof> proofs = new ArrayList<>(question.size());
+            for (int j = 0; j < question.size(); j++, cell++) {
+                factors.add(cells.get(cell).getLeft());
+                proofs.add(cells.get(cell).getRight());
+            }
+            builder.addDecryptionFactors(factors);
+            builder.addDecryptionProofs(proofs);
+        }
+        return builder.build();
+    }
+
+    private Pair<BigInteger, Proof> decrypt(Ciphertext ct, int question, int choice) {
+        var event = DecryptionEvent.start("partial-decryption", question, choice);
+        var cell = decrypt(ct);
+        event.finish();
+        return cell;
+    }
+
+    private List<Pair<BigInteger, Proof>> decryptSequential(List<List<Ciphertext>> encryptedTally) {
+        List<Pair<BigInteger, Proof>> cells = new ArrayList<>();
+        for (int i = 0; i < encryptedTally.size(); i++) {
+            List<Ciphertext> question = encryptedTally.get(i);
+            for (int j = 0; j < question.size(); j++) {
+                cells.add(decrypt(question.get(j), i, j));
+            }
+        }
+        return cells;
+    }
+
+    private List<Pair<BigInteger, Proof>> decryptParallel(List<List<Ciphertext>> encryptedTally, int threads) {
+        List<Callable<Pair<BigInteger, Proof>>> tasks = new ArrayList<>();
+        for (int i = 0; i < encryptedTally.size(); i++) {
+            List<Ciphertext> question = encryptedTally.get(i);
+            for (int j = 0; j < question.size(); j++) {
+                var ct = question.get(j);
+                int questionIndex = i;
+                int choiceIndex = j;
+                tasks.add(() -> decrypt(ct, questionIndex, choiceIndex));
+            }
+        }
+        var pool = new ForkJoinPool(threads);
+        try {
+            List<Pair<BigInteger, Proof>> cells = new ArrayList<>(tasks.size());
+            for (Future<Pair<BigInteger, Proof>> future: pool.invokeAll(tasks)) {
+                cells.add(future.get());
+            }
+            return cells;
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("decryption interrupted", exc);
+        } catch (ExecutionException exc) {
+            var cause = exc.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.omadac.vote.belenios.algo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for the verification of a single proof.
+ */
+@Name("belenios.Proof")
+@Label("Proof Verification")
+@Category("Belenios")
+@Description("Verification of a zero-knowledge proof or signature")
+class ProofEvent extends Event {
+
+    @Label("Kind")
+    @Description("interval, blank, overall, signature, decryption or pok")
+    String kind;
+
+    @Label("Ballot")
+    @Description("Ordinal of the ballot, or -1")
+    int ballot;
+
+    @Label("Question")
+    @Description("Question index, or -1")
+    int question;
+
+    @Label("Choice")
+    @Description("Choice index, or -1")
+    int choice;
+
+    @Label("Valid")
+    boolean valid;
+
+    static ProofEvent start(String kind, int ballot, int question, int choice) {
+        var event = new ProofEvent();
+        event.kind = kind;
+        event.ballot = ballot;
+        event.question = question;
+        event.choice = choice;
+        event.begin();
+        return event;
+    }
+
+    boolean finish(boolean valid) {
+        end();
+        if (shouldCommit()) {
+            this.valid = valid;
+            commit();
+        }
+        return valid;
+    }
+}
@@ -0,0 +1,160 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.omadac.vote.belenios.model.WrappedPublicKey;
+
+/**
+ * Random exponents r with the powers g^r and y^r for a given election public key.
+ * <p>
+ * A pool with a positive capacity is filled by background threads, so that ballot creation only
+ * needs multiplications and hashing as long as the pool is not exhausted. When the pool is empty,
+ * {@link #next()} computes a triple on the calling thread. A pool with capacity 0 has no background
+ * threads and always computes on demand.
+ */
+public class RandomnessPool implements AutoCloseable {
+
+    public static final class Randomness {
+
+        private final BigInteger r;
+        private final BigInteger gr;
+        private final BigInteger yr;
+
+        private Randomness(BigInteger r, BigInteger gr, BigInteger yr) {
+            this.r = r;
+            this.gr = gr;
+            this.yr = yr;
+        }
+
+        /**
+         * @return a uniformly random exponent in [0, q)
+         */
+        public BigInteger r() {
+            return r;
+        }
+
+        /**
+         * @return g^r mod p
+         */
+        public BigInteger gr() {
+            return gr;
+        }
+
+        /**
+         * @return y^r mod p
+         */
+        public BigInteger yr() {
+            return yr;
+        }
+    }
+
+    private final WrappedPublicKey publicKey;
+
+    private final FixedBaseExp gExp;
+
+    private final FixedBaseExp yExp;
+
+    private final int qBits;
+
+    private final BlockingQueue<Randomness> queue;
+
+    private final List<Thread> fillers = new ArrayList<>();
+
+    public RandomnessPool(WrappedPublicKey publicKey, int capacity, int threads) {
+        this(publicKey, FixedBaseExp.generator(publicKey.group()), FixedBaseExp.publicKey(publicKey), capacity,
+            threads);
+    }
+
+    public RandomnessPool(ElectionContext context, int capacity, int threads) {
+        this(context.publicKey(), context.gExp(), context.yExp(), capacity, threads);
+    }
+
+    private RandomnessPool(WrappedPublicKey publicKey, FixedBaseExp gExp, FixedBaseExp yExp, int capacity,
+        int threads) {
+        if (capacity < 0 || threads < 0) {
+            throw new IllegalArgumentException("capacity and threads must not be negative");
+        }
+        this.publicKey = publicKey;
+        this.gExp = gExp;
+        this.yExp = yExp;
+        this.qBits = publicKey.group().q().bitLength();
+        this.queue = capacity == 0 ? null : new ArrayBlockingQueue<>(capacity);
+        if (capacity > 0) {
+            for (int i = 0; i < threads; i++) {
+                var filler = new Thread(this::fill, "randomness-pool-" + i);
+                filler.setDaemon(true);
+                fillers.add(filler);
+                filler.start();
+            }
+        }
+    }
+
+    /**
+     * @return a pool without background threads, which computes every triple on demand
+     */
+    public static RandomnessPool onDemand(WrappedPublicKey publicKey) {
+        return new RandomnessPool(publicKey, 0, 0);
+    }
+
+    /**
+     * @return a pool without background threads, which computes every triple on demand
+     */
+    public static RandomnessPool onDemand(ElectionContext context) {
+        return new RandomnessPool(context, 0, 0);
+    }
+
+    public WrappedPublicKey publicKey() {
+        return publicKey;
+    }
+
+    FixedBaseExp gExp() {
+        return gExp;
+    }
+
+    /**
+     * @return the number of precomputed triples currently available
+     */
+    public int available() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * @return a precomputed triple, or a newly computed one if the pool is empty
+     */
+    public Randomness next() {
+        if (queue != null) {
+            var randomness = queue.poll();
+            if (randomness != null) {
+                return randomness;
+            }
+        }
+        return compute();
+    }
+
+    private Randomness compute() {
+        var r = GenRandomInteger.run(publicKey.group().q(), qBits);
+        return new Randomness(r, gExp.pow(r), yExp.pow(r));
+    }
+
+    private void fill() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                queue.put(compute());
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the background threads. Triples already in the pool can still be used.
+     */
+    @Override
+    public void close() {
+        fillers.forEach(Thread::interrupt);
+    }
+}
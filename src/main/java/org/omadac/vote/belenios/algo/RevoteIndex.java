@@ -0,0 +1,182 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Keeps the ordinal of the newest ballot for each public credential, so that only the last ballot
+ * cast with a credential is counted.
+ * <p>
+ * Ballots are added in submission order. Adding a ballot for a known credential replaces the
+ * previous ballot, which is counted as superseded. The table is keyed by the 128-bit
+ * {@link Fingerprint#wide(BigInteger) fingerprint} of the credential in open addressing arrays of
+ * primitives, like the {@link CredentialRegistry}, so the credentials themselves are not kept and a
+ * fingerprint match is taken as a match of the credential. Memory use is proportional to the number
+ * of distinct credentials, not to the number of ballots.
+ */
+public class RevoteIndex {
+
+    private static final int EMPTY = -1;
+
+    private long[] highs;
+
+    private long[] lows;
+
+    private int[] ordinals;
+
+    private int mask;
+
+    private int size;
+
+    private int numBallots;
+
+    private int numSuperseded;
+
+    public RevoteIndex() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedVoters
+     *            expected number of distinct credentials, used for the initial capacity
+     */
+    public RevoteIndex(int expectedVoters) {
+        allocate(Integer.highestOneBit(Math.max(2 * expectedVoters - 1, 1)) << 1);
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        ordinals = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(ordinals, EMPTY);
+    }
+
+    /**
+     * Builds the index of all ballots in a JSON or binary ballot file, where the ordinal of a ballot
+     * is its position in the file.
+     */
+    public static RevoteIndex build(Path ballotsFile) throws IOException {
+        if (BallotFiles.isBinary(ballotsFile)) {
+            try (var archive = BallotArchive.open(ballotsFile)) {
+                return build(archive);
+            }
+        }
+        try (InputStream in = Files.newInputStream(ballotsFile)) {
+            var index = new RevoteIndex();
+            StreamingBallotParser.parseCredentials(in,
+                (publicCred, alphas, betas) -> index.put(publicCred, index.numBallots()));
+            return index;
+        }
+    }
+
+    /**
+     * Builds the index of all ballots in an archive from the credentials at the end of each record.
+     */
+    public static RevoteIndex build(BallotArchive archive) {
+        var index = new RevoteIndex(archive.numBallots());
+        for (int ordinal = 0; ordinal < archive.numBallots(); ordinal++) {
+            index.put(archive.publicCredential(ordinal), ordinal);
+        }
+        return index;
+    }
+
+    /**
+     * Adds the next ballot.
+     *
+     * @return the ordinal of the ballot superseded by this one, or -1 if this is the first ballot for
+     *         the credential
+     */
+    public int put(BigInteger publicCred, int ordinal) {
+        numBallots++;
+        var fingerprint = Fingerprint.wide(publicCred);
+        int slot = find(fingerprint[0], fingerprint[1]);
+        if (ordinals[slot] != EMPTY) {
+            int previous = ordinals[slot];
+            ordinals[slot] = ordinal;
+            numSuperseded++;
+            return previous;
+        }
+        highs[slot] = fingerprint[0];
+        lows[slot] = fingerprint[1];
+        ordinals[slot] = ordinal;
+        size++;
+        if (2 * size > ordinals.length) {
+            rehash();
+        }
+        return EMPTY;
+    }
+
+    private int find(long high, long low) {
+        int slot = (int) high & mask;
+        while (ordinals[slot] != EMPTY && !(highs[slot] == high && lows[slot] == low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        var oldHighs = highs;
+        var oldLows = lows;
+        var oldOrdinals = ordinals;
+        allocate(2 * oldOrdinals.length);
+        for (int i = 0; i < oldOrdinals.length; i++) {
+            if (oldOrdinals[i] != EMPTY) {
+                int slot = (int) oldHighs[i] & mask;
+                while (ordinals[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                highs[slot] = oldHighs[i];
+                lows[slot] = oldLows[i];
+                ordinals[slot] = oldOrdinals[i];
+            }
+        }
+    }
+
+    /**
+     * @return the ordinal of the newest ballot for the credential, or -1 if there is none
+     */
+    public int ordinal(BigInteger publicCred) {
+        var fingerprint = Fingerprint.wide(publicCred);
+        return ordinals[find(fingerprint[0], fingerprint[1])];
+    }
+
+    /**
+     * @return true if the given ballot is the newest one for its credential
+     */
+    public boolean isLatest(BigInteger publicCred, int ordinal) {
+        return ordinal != EMPTY && ordinal(publicCred) == ordinal;
+    }
+
+    /**
+     * @return the ordinals of the newest ballot of each credential, in ascending order
+     */
+    public int[] latestOrdinals() {
+        return Arrays.stream(ordinals).filter(ordinal -> ordinal != EMPTY).sorted().toArray();
+    }
+
+    /**
+     * @return the number of distinct credentials
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of ballots added, including superseded ones
+     */
+    public int numBallots() {
+        return numBallots;
+    }
+
+    /**
+     * @return the number of ballots replaced by a newer ballot with the same credential
+     */
+    public int numSuperseded() {
+        return numSuperseded;
+    }
+}
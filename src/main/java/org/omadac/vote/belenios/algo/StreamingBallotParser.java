@@ -0,0 +1,179 @@
+package org.omadac.vote.belenios.algo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Extracts the ciphertexts and the public credential of each ballot from a sequence of JSON ballots,
+ * such as a {@code ballots.jsons} file, without building {@link org.omadac.vote.belenios.model.Ballot}
+ * objects.
+ * <p>
+ * Only the current ballot is held in memory. Proofs and other fields are skipped.
+ */
+public class StreamingBallotParser {
+
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Called once per ballot. The choices of all answers are passed in question order. The lists
+         * are reused for the next ballot and must not be retained.
+         */
+        void ballot(BigInteger publicCred, List<BigInteger> alphas, List<BigInteger> betas);
+    }
+
+    private final List<BigInteger> alphas = new ArrayList<>();
+
+    private final List<BigInteger> betas = new ArrayList<>();
+
+    private BigInteger publicCred;
+
+    private final boolean skipAnswers;
+
+    private StreamingBallotParser(boolean skipAnswers) {
+        this.skipAnswers = skipAnswers;
+    }
+
+    /**
+     * Parses all ballots from the given stream.
+     *
+     * @return number of ballots
+     */
+    public static int parse(InputStream in, Handler handler) {
+        try (var parser = JsonMapper.INSTANCE.getFactory().createParser(in)) {
+            return new StreamingBallotParser(false).parseAll(parser, handler);
+        } catch (IOException exc) {
+            throw new IllegalArgumentException("Cannot parse ballots", exc);
+        }
+    }
+
+    /**
+     * Parses only the public credential of each ballot from the given stream. The answers are skipped
+     * without converting any numbers, and the lists passed to the handler are empty.
+     *
+     * @return number of ballots
+     */
+    public static int parseCredentials(InputStream in, Handler handler) {
+        try (var parser = JsonMapper.INSTANCE.getFactory().createParser(in)) {
+            return new StreamingBallotParser(true).parseAll(parser, handler);
+        } catch (IOException exc) {
+            throw new IllegalArgumentException("Cannot parse ballots", exc);
+        }
+    }
+
+    /**
+     * Parses a single ballot.
+     */
+    public static void parse(String json, Handler handler) {
+        try (var parser = JsonMapper.INSTANCE.getFactory().createParser(json)) {
+            new StreamingBallotParser(false).parseAll(parser, handler);
+        } catch (IOException exc) {
+            throw new IllegalArgumentException("Cannot parse ballot", exc);
+        }
+    }
+
+    private int parseAll(JsonParser parser, Handler handler) throws IOException {
+        int numBallots = 0;
+        while (parser.nextToken() != null) {
+            expect(parser, JsonToken.START_OBJECT);
+            parseBallot(parser);
+            handler.ballot(publicCred, alphas, betas);
+            numBallots++;
+        }
+        var location = parser.getCurrentLocation();
+        Metrics.BYTES_PARSED.add(Math.max(location.getByteOffset(), location.getCharOffset()));
+        return numBallots;
+    }
+
+    private void parseBallot(JsonParser parser) throws IOException {
+        alphas.clear();
+        betas.clear();
+        publicCred = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            if ("answers".equals(field) && !skipAnswers) {
+                expect(parser, JsonToken.START_ARRAY);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parseAnswer(parser);
+                }
+            } else if ("signature".equals(field)) {
+                parseSignature(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (publicCred == null) {
+            throw new IllegalArgumentException("Ballot without signature");
+        }
+    }
+
+    private void parseAnswer(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            if ("choices".equals(field)) {
+                expect(parser, JsonToken.START_ARRAY);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parseCiphertext(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseCiphertext(JsonParser parser) throws IOException {
+        BigInteger alpha = null;
+        BigInteger beta = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            if ("alpha".equals(field)) {
+                alpha = bigInteger(parser);
+            } else if ("beta".equals(field)) {
+                beta = bigInteger(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (alpha == null || beta == null) {
+            throw new IllegalArgumentException("Incomplete ciphertext");
+        }
+        alphas.add(alpha);
+        betas.add(beta);
+    }
+
+    private void parseSignature(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            if ("public_key".equals(field)) {
+                publicCred = bigInteger(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static BigInteger bigInteger(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getBigIntegerValue();
+        }
+        expect(parser, JsonToken.VALUE_STRING);
+        return new BigInteger(parser.getText());
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) {
+        if (parser.currentToken() != token) {
+            throw new IllegalArgumentException("Expected " + token + ", found " + parser.currentToken());
+        }
+    }
+}
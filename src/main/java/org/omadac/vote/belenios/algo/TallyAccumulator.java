@@ -0,0 +1,213 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Ciphertext;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.WeightedBallot;
+
+/**
+ * Mutable product of ballot ciphertexts, updated in place for each absorbed ballot.
+ * <p>
+ * The cells of all questions are stored in a single flat array, in question order, with the same
+ * layout as {@link CreateEncryptedTally#neutral(Election)}.
+ * <p>
+ * Each multiplication is a single Montgomery reduction of the plain product, which avoids the long
+ * division of {@link BigInteger#mod(BigInteger)}. Every reduction divides the cell by R, so the
+ * cells hold the tally times R^-scale, where scale counts the reductions. The factor R^scale is
+ * applied once in {@link #snapshot()}. A Montgomery reduction requires its operands to be in
+ * [0, p[, so ciphertext components outside ]0, p[ are rejected, since tallied ballots may not have
+ * been verified.
+ */
+public class TallyAccumulator {
+
+    private final Montgomery montgomery;
+
+    private final int[] questionSizes;
+
+    private final BigInteger[] alphas;
+
+    private final BigInteger[] betas;
+
+    private long scale;
+
+    private int numBallots;
+
+    private long totalWeight;
+
+    public TallyAccumulator(Election election) {
+        this(ElectionContext.of(election));
+    }
+
+    public TallyAccumulator(ElectionContext context) {
+        this.montgomery = context.montgomery();
+        this.questionSizes = new int[context.numQuestions()];
+        for (int i = 0; i < questionSizes.length; i++) {
+            questionSizes[i] = context.questionSize(i);
+        }
+        int numCells = Arrays.stream(questionSizes).sum();
+        this.alphas = new BigInteger[numCells];
+        this.betas = new BigInteger[numCells];
+        Arrays.fill(alphas, BigInteger.ONE);
+        Arrays.fill(betas, BigInteger.ONE);
+    }
+
+    /**
+     * Continues a tally from a snapshot.
+     */
+    public TallyAccumulator(Election election, List<List<Ciphertext>> tally, int numBallots, long totalWeight) {
+        this(election);
+        if (tally.size() != questionSizes.length) {
+            throw new IllegalArgumentException("operand size mismatch");
+        }
+        int cell = 0;
+        for (int i = 0; i < questionSizes.length; i++) {
+            if (tally.get(i).size() != questionSizes[i]) {
+                throw new IllegalArgumentException("operand size mismatch");
+            }
+            for (Ciphertext ct: tally.get(i)) {
+                alphas[cell] = ct.alpha();
+                betas[cell] = ct.beta();
+                cell++;
+            }
+        }
+        this.numBallots = numBallots;
+        this.totalWeight = totalWeight;
+    }
+
+    public void absorb(Ballot ballot) {
+        absorb(ballot, 1);
+    }
+
+    public void absorb(WeightedBallot weightedBallot) {
+        absorb(weightedBallot.ballot(), weightedBallot.weight());
+    }
+
+    private void absorb(Ballot ballot, int weight) {
+        var answers = ballot.answers();
+        if (answers.size() != questionSizes.length) {
+            throw new IllegalArgumentException("operand size mismatch");
+        }
+        var exponent = BigInteger.valueOf(weight);
+        int cell = 0;
+        for (int i = 0; i < questionSizes.length; i++) {
+            var choices = answers.get(i).choices();
+            if (choices.size() != questionSizes[i]) {
+                throw new IllegalArgumentException("operand size mismatch");
+            }
+            for (Ciphertext ct: choices) {
+                multiply(cell++, ct.alpha(), ct.beta(), weight, exponent);
+            }
+        }
+        scale++;
+        numBallots++;
+        totalWeight += weight;
+        Metrics.BALLOTS_TALLIED.increment();
+        Metrics.TALLY_CELLS.add(this.alphas.length);
+    }
+
+    /**
+     * Multiplies the tally by the ciphertexts of one ballot, raised to the given weight.
+     *
+     * @param alphas
+     *            alpha components of all choices of the ballot in question order
+     * @param betas
+     *            beta components of all choices of the ballot in question order
+     */
+    public void absorb(List<BigInteger> alphas, List<BigInteger> betas, int weight) {
+        if (alphas.size() != this.alphas.length || betas.size() != this.betas.length) {
+            throw new IllegalArgumentException("operand size mismatch");
+        }
+        var exponent = BigInteger.valueOf(weight);
+        for (int i = 0; i < this.alphas.length; i++) {
+            multiply(i, alphas.get(i), betas.get(i), weight, exponent);
+        }
+        scale++;
+        numBallots++;
+        totalWeight += weight;
+        Metrics.BALLOTS_TALLIED.increment();
+        Metrics.TALLY_CELLS.add(this.alphas.length);
+    }
+
+    /**
+     * Divides the tally by the ciphertexts of a ballot absorbed before, raised to the given weight,
+     * e.g. when the ballot has been superseded by a newer ballot with the same credential.
+     */
+    public void remove(List<BigInteger> alphas, List<BigInteger> betas, int weight) {
+        if (alphas.size() != this.alphas.length || betas.size() != this.betas.length) {
+            throw new IllegalArgumentException("operand size mismatch");
+        }
+        var exponent = BigInteger.valueOf(-weight);
+        for (int i = 0; i < this.alphas.length; i++) {
+            multiply(i, alphas.get(i), betas.get(i), -weight, exponent);
+        }
+        scale++;
+        numBallots--;
+        totalWeight -= weight;
+        Metrics.TALLY_CELLS.add(this.alphas.length);
+    }
+
+    private void multiply(int cell, BigInteger alpha, BigInteger beta, int weight, BigInteger exponent) {
+        var p = montgomery.modulus();
+        if (alpha.signum() <= 0 || alpha.compareTo(p) >= 0 || beta.signum() <= 0 || beta.compareTo(p) >= 0) {
+            throw new IllegalArgumentException("ciphertext out of range");
+        }
+        if (weight != 1) {
+            alpha = alpha.modPow(exponent, montgomery.modulus());
+            beta = beta.modPow(exponent, montgomery.modulus());
+        }
+        alphas[cell] = montgomery.multiply(alphas[cell], alpha);
+        betas[cell] = montgomery.multiply(betas[cell], beta);
+    }
+
+    /**
+     * Multiplies this tally by another tally of the same election.
+     */
+    public TallyAccumulator merge(TallyAccumulator other) {
+        if (!Arrays.equals(questionSizes, other.questionSizes)
+            || !montgomery.modulus().equals(other.montgomery.modulus())) {
+            throw new IllegalArgumentException("operand size mismatch");
+        }
+        for (int i = 0; i < alphas.length; i++) {
+            alphas[i] = montgomery.multiply(alphas[i], other.alphas[i]);
+            betas[i] = montgomery.multiply(betas[i], other.betas[i]);
+        }
+        scale += other.scale + 1;
+        numBallots += other.numBallots;
+        totalWeight += other.totalWeight;
+        return this;
+    }
+
+    public int numBallots() {
+        return numBallots;
+    }
+
+    public long totalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return the current encrypted tally
+     */
+    public List<List<Ciphertext>> snapshot() {
+        var p = montgomery.modulus();
+        var factor = montgomery.one().modPow(BigInteger.valueOf(scale), p);
+        List<List<Ciphertext>> result = new ArrayList<>();
+        int cell = 0;
+        for (int size: questionSizes) {
+            List<Ciphertext> question = new ArrayList<>();
+            for (int j = 0; j < size; j++, cell++) {
+                question.add(Ciphertext.builder()
+                    .alpha(alphas[cell].multiply(factor).mod(p))
+                    .beta(betas[cell].multiply(factor).mod(p))
+                    .build());
+            }
+            result.add(question);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package org.omadac.vote.belenios.algo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for tallying a sequence of ballots, such as a file or one part of a
+ * parallel tally.
+ */
+@Name("belenios.Tally")
+@Label("Encrypted Tally")
+@Category("Belenios")
+@Description("Homomorphic tally of a sequence of ballots")
+class TallyEvent extends Event {
+
+    @Label("Ballots")
+    int ballots;
+
+    @Label("Weight")
+    @Description("Total weight of the tally")
+    long weight;
+
+    static TallyEvent start() {
+        var event = new TallyEvent();
+        event.begin();
+        return event;
+    }
+
+    void finish(int ballots, long weight) {
+        end();
+        if (shouldCommit()) {
+            this.ballots = ballots;
+            this.weight = weight;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Builds a Fiat-Shamir message and hashes it like {@link ModularChecksum#checksum(String, BigInteger)}
+ * without creating the message as a string.
+ * <p>
+ * A message consists of a tag followed by sections separated by {@code |}. The items within a section
+ * are separated by {@code ,}. For example,
+ *
+ * <pre>
+ * Transcript.start("decrypt").section().add(y).section().add(a).add(b).checksum(q)
+ * </pre>
+ *
+ * hashes the same bytes as {@code String.format("decrypt|%s|%s,%s", y, a, b)}. Numbers are written
+ * in decimal directly into a byte buffer, which is passed to the digest whenever it is full.
+ * <p>
+ * There is one reusable transcript per thread. Calling {@link #start(String)} discards the current
+ * transcript of the calling thread, so a transcript must be completed before the next one is
+ * started.
+ */
+public class Transcript {
+
+    private static final ThreadLocal<Transcript> CURRENT = ThreadLocal.withInitial(Transcript::new);
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final long CHUNK = 1_000_000_000L;
+
+    private static final int CHUNK_DIGITS = 9;
+
+    private final MessageDigest digest;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int length;
+
+    private long hashed;
+
+    private boolean firstItem;
+
+    private int[] words = new int[64];
+
+    private byte[] digits = new byte[700];
+
+    private Transcript() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalArgumentException(exc);
+        }
+    }
+
+    public static Transcript start(String tag) {
+        var transcript = CURRENT.get();
+        transcript.digest.reset();
+        transcript.length = 0;
+        transcript.hashed = 0;
+        transcript.firstItem = true;
+        transcript.text(tag);
+        return transcript;
+    }
+
+    /**
+     * Starts a new section.
+     */
+    public Transcript section() {
+        put((byte) '|');
+        firstItem = true;
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of a number as the next item of the current section.
+     */
+    public Transcript add(BigInteger value) {
+        separate();
+        decimal(value);
+        return this;
+    }
+
+    /**
+     * Appends a piece of text as the next item of the current section. The text may itself contain
+     * separators.
+     */
+    public Transcript add(String text) {
+        separate();
+        text(text);
+        return this;
+    }
+
+    /**
+     * @return the SHA-256 hash of the message modulo the given modulus
+     */
+    public BigInteger checksum(BigInteger modulus) {
+        flush();
+        Metrics.BYTES_HASHED.add(hashed);
+        return new BigInteger(1, digest.digest()).mod(modulus);
+    }
+
+    private void separate() {
+        if (firstItem) {
+            firstItem = false;
+        } else {
+            put((byte) ',');
+        }
+    }
+
+    private void text(String text) {
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        put(bytes, 0, bytes.length);
+    }
+
+    private void decimal(BigInteger value) {
+        if (value.signum() < 0) {
+            put((byte) '-');
+            value = value.negate();
+        }
+        if (value.bitLength() < Long.SIZE) {
+            decimal(value.longValue());
+            return;
+        }
+
+        var bytes = value.toByteArray();
+        int numWords = (bytes.length + 3) / 4;
+        if (words.length < numWords) {
+            words = new int[numWords];
+            digits = new byte[10 * numWords + CHUNK_DIGITS];
+        }
+        int offset = 4 * numWords - bytes.length;
+        for (int i = 0; i < numWords; i++) {
+            int word = 0;
+            for (int k = 0; k < 4; k++) {
+                int index = 4 * i + k - offset;
+                word = (word << 8) | (index < 0 ? 0 : bytes[index] & 0xFF);
+            }
+            words[i] = word;
+        }
+
+        // repeated division by 10^9, producing nine digits per pass from the right
+        int pos = digits.length;
+        int start = 0;
+        while (start < numWords) {
+            long remainder = 0;
+            for (int i = start; i < numWords; i++) {
+                long current = (remainder << 32) | (words[i] & 0xFFFFFFFFL);
+                words[i] = (int) (current / CHUNK);
+                remainder = current % CHUNK;
+            }
+            while (start < numWords && words[start] == 0) {
+                start++;
+            }
+            if (start < numWords) {
+                for (int k = 0; k < CHUNK_DIGITS; k++) {
+                    digits[--pos] = (byte) ('0' + remainder % 10);
+                    remainder /= 10;
+                }
+            } else {
+                do {
+                    digits[--pos] = (byte) ('0' + remainder % 10);
+                    remainder /= 10;
+                } while (remainder != 0);
+            }
+        }
+        put(digits, pos, digits.length - pos);
+    }
+
+    private void decimal(long value) {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        put(digits, pos, digits.length - pos);
+    }
+
+    private void put(byte b) {
+        if (length == buffer.length) {
+            flush();
+        }
+        buffer[length++] = b;
+    }
+
+    private void put(byte[] bytes, int offset, int len) {
+        if (len > buffer.length - length) {
+            flush();
+            if (len > buffer.length) {
+                digest.update(bytes, offset, len);
+                hashed += len;
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, length, len);
+        length += len;
+    }
+
+    private void flush() {
+        digest.update(buffer, 0, length);
+        hashed += length;
+        length = 0;
+    }
+}
@@ -1,7 +1,6 @@
 package org.omadac.vote.belenios.algo;
 
 import static java.util.stream.Collectors.joining;
-import static org.omadac.vote.belenios.algo.ModularChecksum.checksum;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -14,110 +13,350 @@ import org.omadac.vote.belenios.model.Ciphertext;
 import org.omadac.vote.belenios.model.Election;
 import org.omadac.vote.belenios.model.Group;
 import org.omadac.vote.belenios.model.Proof;
+import org.omadac.vote.belenios.model.Question;
 import org.omadac.vote.belenios.model.Signature;
 import org.omadac.vote.belenios.model.WrappedPublicKey;
 
 public class VerifyBallot {
 
     public static boolean verifyBallot(Ballot ballot, Election election) {
+        return verifyBallot(ballot, ElectionContext.of(election));
+    }
+
+    public static boolean verifyBallot(Ballot ballot, ElectionContext context) {
+        return verifyBallot(ballot, context, -1);
+    }
+
+    /**
+     * @param ordinal
+     *            position of the ballot in its file, for diagnostics only, or -1
+     */
+    static boolean verifyBallot(Ballot ballot, ElectionContext context, int ordinal) {
+        Metrics.BALLOTS_VERIFIED.increment();
+        var event = BallotEvent.start("verify", ordinal);
+        if (!event.finish(checkStructure(ballot, context) == null && checkElection(ballot, context) == null
+            && checkRange(ballot, context) == null && checkSubgroup(ballot, context) == null
+            && checkProofs(ballot, context, ordinal))) {
+            Metrics.BALLOTS_REJECTED.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Verifies the proofs and the signature of a ballot which has passed all other checks, e.g. in
+     * a {@link BallotAdmission}.
+     */
+    static boolean verifyProofs(Ballot ballot, ElectionContext context, int ordinal) {
+        Metrics.BALLOTS_VERIFIED.increment();
+        var event = BallotEvent.start("verify", ordinal);
+        if (!event.finish(checkProofs(ballot, context, ordinal))) {
+            Metrics.BALLOTS_REJECTED.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks the presence of the election and signature fields and the number of answers, of choices
+     * per answer and of proofs against the questions of the election.
+     *
+     * @return the reason for rejecting the ballot, or null if the ballot is well-formed
+     */
+    static String checkStructure(Ballot ballot, ElectionContext context) {
+        if (ballot.electionUuid() == null || ballot.electionHash() == null || ballot.signature() == null) {
+            return "missing election uuid, election hash or signature";
+        }
+        var questions = context.election().questions();
+        if (ballot.answers().size() != questions.size()) {
+            return "expected " + questions.size() + " answers, found " + ballot.answers().size();
+        }
+        for (int i = 0; i < questions.size(); i++) {
+            var question = questions.get(i);
+            var answer = ballot.answers().get(i);
+            int numChoices = answer.choices().size();
+            if (numChoices != context.questionSize(i) || answer.individualProofs().size() != numChoices) {
+                return "wrong number of choices for question " + i;
+            }
+            for (List<Proof> proofs: answer.individualProofs()) {
+                if (proofs.size() != 2) {
+                    return "wrong number of individual proofs for question " + i;
+                }
+            }
+            int numOverall = question.blankAnswerAllowed() ? 2 : question.max() - question.min() + 1;
+            int numBlank = question.blankAnswerAllowed() ? 2 : 0;
+            if (answer.overallProof().size() != numOverall || answer.blankProof().size() != numBlank) {
+                return "wrong number of overall or blank proofs for question " + i;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks that all ciphertext components and the public credential are in ]0, p[ and that all
+     * challenges and responses are in [0, q[. Missing numbers are out of range.
+     *
+     * @return the reason for rejecting the ballot, or null if all numbers are in range
+     */
+    static String checkRange(Ballot ballot, ElectionContext context) {
+        var p = context.p();
+        var q = context.q();
+        for (Answer answer: ballot.answers()) {
+            for (Ciphertext ct: answer.choices()) {
+                if (!isUnit(ct.alpha(), p) || !isUnit(ct.beta(), p)) {
+                    return "ciphertext out of range";
+                }
+            }
+            for (List<Proof> proofs: answer.individualProofs()) {
+                if (!isInRange(proofs, q)) {
+                    return "proof out of range";
+                }
+            }
+            if (!isInRange(answer.overallProof(), q) || !isInRange(answer.blankProof(), q)) {
+                return "proof out of range";
+            }
+        }
+        var signature = ballot.signature();
+        if (!isUnit(signature.publicKey(), p) || !isExponent(signature.challenge(), q)
+            || !isExponent(signature.response(), q)) {
+            return "signature out of range";
+        }
+        return null;
+    }
+
+    /**
+     * Checks that the ciphertext components and the public credential of a ballot in range are
+     * elements of the subgroup of order q, i.e. x^q = 1 mod p, since the proofs do not imply it. This
+     * costs one exponentiation per element.
+     *
+     * @return the reason for rejecting the ballot, or null if all elements are in the subgroup
+     */
+    static String checkSubgroup(Ballot ballot, ElectionContext context) {
+        var p = context.p();
+        var q = context.q();
+        for (Answer answer: ballot.answers()) {
+            for (Ciphertext ct: answer.choices()) {
+                if (!isMember(ct.alpha(), q, p) || !isMember(ct.beta(), q, p)) {
+                    return "ciphertext not in subgroup";
+                }
+            }
+        }
+        if (!isMember(ballot.signature().publicKey(), q, p)) {
+            return "credential not in subgroup";
+        }
+        return null;
+    }
+
+    private static boolean isUnit(BigInteger value, BigInteger p) {
+        return value != null && value.signum() > 0 && value.compareTo(p) < 0;
+    }
+
+    private static boolean isMember(BigInteger value, BigInteger q, BigInteger p) {
+        return value.modPow(q, p).equals(BigInteger.ONE);
+    }
+
+    private static boolean isExponent(BigInteger value, BigInteger q) {
+        return value != null && value.signum() >= 0 && value.compareTo(q) < 0;
+    }
+
+    private static boolean isInRange(List<Proof> proofs, BigInteger q) {
+        for (Proof proof: proofs) {
+            if (!isExponent(proof.challenge(), q) || !isExponent(proof.response(), q)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the election uuid and hash of a ballot with the election, before any proof is
+     * verified.
+     *
+     * @return the reason for rejecting the ballot, or null if the ballot belongs to the election
+     */
+    static String checkElection(Ballot ballot, ElectionContext context) {
+        if (!ballot.electionUuid().equals(context.election().uuid())) {
+            return "wrong election uuid";
+        }
+        if (!ballot.electionHash().equals(context.electionHash())) {
+            return "wrong election hash";
+        }
+        return null;
+    }
+
+    private static boolean checkProofs(Ballot ballot, ElectionContext context, int ordinal) {
         var publicCred = ballot.signature().publicKey();
-        var y = election.publicKey();
-        for (int i = 0; i < election.questions().size(); i++) {
-            var question = election.questions().get(i);
+        var questions = context.election().questions();
+        for (int i = 0; i < questions.size(); i++) {
+            var question = questions.get(i);
             var blankAllowed = question.blankAnswerAllowed();
             var answer = ballot.answers().get(i);
             for (int j = 0; j < answer.choices().size(); j++) {
                 var choice = answer.choices().get(j);
                 var proofs = answer.individualProofs().get(j);
-                var isCorrect = verifyIntervalProof(y, publicCred, choice, 0, 1, proofs);
+                var event = ProofEvent.start("interval", ordinal, i, j);
+                var isCorrect = event.finish(verifyIntervalProof(context, publicCred, choice, 0, 1, proofs, true));
                 if (!isCorrect) {
                     return false;
                 }
             }
 
             if (blankAllowed) {
-                var isCorrect = verifyBlankProof(answer, publicCred, y)
-                    && verifyOverallProof(answer, publicCred, y);
+                var isCorrect = verifyBlankAndOverallProof(answer, publicCred, context, ordinal, i);
 
                 if (!isCorrect) {
                     return false;
                 }
             } else {
-                var ctSigma = answer.choices().stream()
-                    .reduce(Ciphertext.NEUTRAL, (left, right) -> left.combine(right, y.group().p()));
-                if (!verifyIntervalProof(y, publicCred, ctSigma, question.min(), question.max(),
-                    answer.overallProof())) {
+                var event = ProofEvent.start("overall", ordinal, i, -1);
+                if (!event.finish(verifyNonBlankOverallProof(answer, publicCred, context, question))) {
                     return false;
                 }
             }
         }
 
-        return verifySignature(ballot.signature(), ballot.answers(), y.group());
+        var event = ProofEvent.start("signature", ordinal, -1, -1);
+        return event.finish(verifySignature(ballot.signature(), ballot.answers(), context, true));
+    }
+
+    /**
+     * Verifies the blank and overall proofs of an answer whose ciphertexts are known to be elements
+     * of the subgroup.
+     */
+    static boolean verifyBlankAndOverallProof(Answer answer, BigInteger publicCred, ElectionContext context,
+        int ordinal, int question) {
+        var ct0 = answer.choices().get(0);
+        var ctSigma = answer.choices().stream().skip(1)
+            .reduce(Ciphertext.NEUTRAL, (left, right) -> left.combine(right, context.p()));
+        var prefix = String.join(",", context.keyPrefix(), ct0.alpha().toString(), ct0.beta().toString(),
+            ctSigma.alpha().toString(), ctSigma.beta().toString());
+
+        var blankProof = answer.blankProof();
+        var overallProof = answer.overallProof();
+        var blankEvent = ProofEvent.start("blank", ordinal, question, -1);
+        if (!blankEvent.finish(verifyBlankProof(context.group(), context.gExp(), context.yExp(),
+            ct0.alpha(), ct0.beta(), ctSigma.alpha(), ctSigma.beta(),
+            blankProof.get(0).challenge(), blankProof.get(0).response(),
+            blankProof.get(1).challenge(), blankProof.get(1).response(),
+            prefix, publicCred, true))) {
+            return false;
+        }
+        var overallEvent = ProofEvent.start("overall", ordinal, question, -1);
+        return overallEvent.finish(verifyOverallProof(context.group(), context.gExp(), context.yExp(),
+            ct0.alpha(), ct0.beta(), ctSigma.alpha(), ctSigma.beta(),
+            overallProof.get(0).challenge(), overallProof.get(0).response(),
+            overallProof.get(1).challenge(), overallProof.get(1).response(),
+            prefix, publicCred, true));
+    }
+
+    /**
+     * Verifies the overall proof of an answer to a question without blank vote, i.e. the interval
+     * proof of the product of its ciphertexts, which are known to be elements of the subgroup. The
+     * time is recorded as an overall proof.
+     */
+    static boolean verifyNonBlankOverallProof(Answer answer, BigInteger publicCred, ElectionContext context,
+        Question question) {
+        var ctSigma = answer.choices().stream()
+            .reduce(Ciphertext.NEUTRAL, (left, right) -> left.combine(right, context.p()));
+        return verifyIntervalProof(context.group(), context.gExp(), context.yExp(), publicCred, ctSigma,
+            question.min(), question.max(), answer.overallProof(), true, Metrics.OVERALL_PROOF);
     }
 
     public static boolean verifyIntervalProof(WrappedPublicKey publicKey, BigInteger publicCred,
         Ciphertext ct, int min, int max, List<Proof> proofs) {
-        var group = publicKey.group();
+        return verifyIntervalProof(publicKey.group(), FixedBaseExp.generator(publicKey.group()),
+            FixedBaseExp.publicKey(publicKey), publicCred, ct, min, max, proofs, false, Metrics.INTERVAL_PROOF);
+    }
+
+    public static boolean verifyIntervalProof(ElectionContext context, BigInteger publicCred,
+        Ciphertext ct, int min, int max, List<Proof> proofs) {
+        return verifyIntervalProof(context, publicCred, ct, min, max, proofs, false);
+    }
+
+    /**
+     * @param members
+     *            true if the ciphertext is known to be an element of the subgroup
+     */
+    static boolean verifyIntervalProof(ElectionContext context, BigInteger publicCred,
+        Ciphertext ct, int min, int max, List<Proof> proofs, boolean members) {
+        return verifyIntervalProof(context.group(), context.gExp(), context.yExp(), publicCred, ct, min, max,
+            proofs, members, Metrics.INTERVAL_PROOF);
+    }
+
+    /**
+     * @param timer
+     *            records the time of the proof, which depends on whether it is an individual or an
+     *            overall proof
+     */
+    private static boolean verifyIntervalProof(Group group, FixedBaseExp gExp, FixedBaseExp yExp,
+        BigInteger publicCred, Ciphertext ct, int min, int max, List<Proof> proofs, boolean members,
+        Metrics.Timer timer) {
+        long start = System.nanoTime();
         var j = min;
         List<Ciphertext> abs = new ArrayList<>();
         for (Proof proof: proofs) {
             var challenge = proof.challenge();
             var response = proof.response();
-            var aNum = group.g().modPow(response, group.p());
-            var aDenom = ct.alpha().modPow(challenge, group.p());
-            var a = aNum.multiply(aDenom.modInverse(group.p())).mod(group.p());
-
-            var bNum = publicKey.y().modPow(response, group.p());
-            var bDenom = ct.beta().multiply(group.g().modInverse(group.p()).modPow(BigInteger.valueOf(j), group.p()))
-                .modPow(challenge, group.p());
-            var b = bNum.multiply(bDenom.modInverse(group.p())).mod(group.p());
+            var a = MultiExp.of(group, members)
+                .fixed(gExp, response)
+                .variable(ct.alpha(), challenge.negate())
+                .result();
+
+            // y^r * (beta / g^j)^-c = y^r * g^(j*c) * beta^-c
+            var b = MultiExp.of(group, members)
+                .fixed(yExp, response)
+                .fixed(gExp, challenge.multiply(BigInteger.valueOf(j)))
+                .variable(ct.beta(), challenge.negate())
+                .result();
 
             var ab = Ciphertext.builder().alpha(a).beta(b).build();
             abs.add(ab);
             j++;
         }
 
-        var suffix = abs.stream()
-            .map(ab -> (ab.alpha() + "," + ab.beta()))
-            .collect(joining(","));
-        var message = String.format("prove|%s|%s,%s|%s", publicCred.toString(),
-            ct.alpha().toString(), ct.beta().toString(), suffix);
-        var checksum = checksum(message, group.q());
+        var transcript = Transcript.start("prove")
+            .section().add(publicCred)
+            .section().add(ct.alpha()).add(ct.beta())
+            .section();
+        for (Ciphertext ab: abs) {
+            transcript.add(ab.alpha()).add(ab.beta());
+        }
+        var checksum = transcript.checksum(group.q());
 
         var challengeSum = proofs.stream().map(Proof::challenge)
             .reduce(BigInteger.ZERO, BigInteger::add)
             .mod(group.q());
-        return checksum.equals(challengeSum);
+        var isValid = checksum.equals(challengeSum);
+        timer.record(start);
+        return isValid;
     }
 
     public static boolean verifyVote(BigInteger alpha, BigInteger beta, BigInteger challenge0, BigInteger response0,
         BigInteger challenge1, BigInteger response1, BigInteger publicCred, WrappedPublicKey wrappedPublicKey) {
+        long start = System.nanoTime();
         var group = wrappedPublicKey.group();
-        var a0Num = group.g().modPow(response0, group.p());
-        var a0Denom = alpha.modPow(challenge0, group.p());
-        var a0 = a0Num.multiply(a0Denom.modInverse(group.p())).mod(group.p());
-
-        var b0Num = wrappedPublicKey.y().modPow(response0, group.p());
-        var b0Denom = beta.modPow(challenge0, group.p());
-        var b0 = b0Num.multiply(b0Denom.modInverse(group.p())).mod(group.p());
-
-        var a1Num = group.g().modPow(response1, group.p());
-        var a1Denom = alpha.modPow(challenge1, group.p());
-        var a1 = a1Num.multiply(a1Denom.modInverse(group.p())).mod(group.p());
-
-        var b1Num = wrappedPublicKey.y().modPow(response1, group.p());
-        var b1Denom = beta.multiply(group.g().modInverse(group.p())).modPow(challenge1, group.p());
-        var b1 = b1Num.multiply(b1Denom.modInverse(group.p())).mod(group.p());
+        var gExp = FixedBaseExp.generator(group);
+        var yExp = FixedBaseExp.publicKey(wrappedPublicKey);
+        var a0 = MultiExp.pow(gExp, response0, alpha, challenge0.negate(), group);
+        var b0 = MultiExp.pow(yExp, response0, beta, challenge0.negate(), group);
+        var a1 = MultiExp.pow(gExp, response1, alpha, challenge1.negate(), group);
+        var b1 = MultiExp.of(group)
+            .fixed(yExp, response1)
+            .fixed(gExp, challenge1)
+            .variable(beta, challenge1.negate())
+            .result();
 
         var challenges = challenge0.add(challenge1).mod(group.q());
 
-        String message = String.format("prove|%s|%s,%s|%s,%s,%s,%s", publicCred,
-            alpha, beta,
-            a0, b0, a1, b1);
-
-        var checksum = checksum(message, group.q());
+        var checksum = Transcript.start("prove")
+            .section().add(publicCred)
+            .section().add(alpha).add(beta)
+            .section().add(a0).add(b0).add(a1).add(b1)
+            .checksum(group.q());
 
-        return challenges.equals(checksum);
+        var isValid = challenges.equals(checksum);
+        Metrics.INTERVAL_PROOF.record(start);
+        return isValid;
     }
 
     public static boolean verifyBlankProof(Answer answer, BigInteger publicCred, WrappedPublicKey publicKey) {
@@ -146,23 +385,32 @@ public class VerifyBallot {
     public static boolean verifyBlankProof(BigInteger alpha0, BigInteger beta0, BigInteger alphaSigma,
         BigInteger betaSigma, BigInteger challenge0, BigInteger response0, BigInteger challengeSigma,
         BigInteger responseSigma, String prefix, BigInteger publicCred, WrappedPublicKey wrappedPublicKey) {
-
         var group = wrappedPublicKey.group();
-        var a0 = group.g().modPow(response0, group.p()).multiply(alpha0.modPow(challenge0, group.p())).mod(group.p());
-        var b0 = wrappedPublicKey.y().modPow(response0, group.p()).multiply(beta0.modPow(challenge0, group.p()))
-            .mod(group.p());
-        var aSigma = group.g().modPow(responseSigma, group.p())
-            .multiply(alphaSigma.modPow(challengeSigma, group.p()))
-            .mod(group.p());
-        var bSigma = wrappedPublicKey.y().modPow(responseSigma, group.p())
-            .multiply(betaSigma.modPow(challengeSigma, group.p()))
-            .mod(group.p());
-
-        String message = String.format("bproof0|%s|%s|%s,%s,%s,%s", publicCred, prefix, a0, b0, aSigma, bSigma);
-        var checksum = checksum(message, group.q());
+        return verifyBlankProof(group, FixedBaseExp.generator(group), FixedBaseExp.publicKey(wrappedPublicKey),
+            alpha0, beta0, alphaSigma, betaSigma, challenge0, response0, challengeSigma, responseSigma, prefix,
+            publicCred, false);
+    }
+
+    private static boolean verifyBlankProof(Group group, FixedBaseExp gExp, FixedBaseExp yExp,
+        BigInteger alpha0, BigInteger beta0, BigInteger alphaSigma, BigInteger betaSigma, BigInteger challenge0,
+        BigInteger response0, BigInteger challengeSigma, BigInteger responseSigma, String prefix,
+        BigInteger publicCred, boolean members) {
+        long start = System.nanoTime();
+        var a0 = MultiExp.pow(gExp, response0, alpha0, challenge0, group, members);
+        var b0 = MultiExp.pow(yExp, response0, beta0, challenge0, group, members);
+        var aSigma = MultiExp.pow(gExp, responseSigma, alphaSigma, challengeSigma, group, members);
+        var bSigma = MultiExp.pow(yExp, responseSigma, betaSigma, challengeSigma, group, members);
+
+        var checksum = Transcript.start("bproof0")
+            .section().add(publicCred)
+            .section().add(prefix)
+            .section().add(a0).add(b0).add(aSigma).add(bSigma)
+            .checksum(group.q());
 
         var challenges = challenge0.add(challengeSigma).mod(group.q());
-        return challenges.equals(checksum);
+        var isValid = challenges.equals(checksum);
+        Metrics.BLANK_PROOF.record(start);
+        return isValid;
     }
 
     public static boolean verifyOverallProof(Answer answer, BigInteger publicCred, WrappedPublicKey publicKey) {
@@ -191,26 +439,41 @@ public class VerifyBallot {
     public static boolean verifyOverallProof(BigInteger alpha0, BigInteger beta0, BigInteger alphaSigma,
         BigInteger betaSigma, BigInteger challenge0, BigInteger response0, BigInteger challenge1,
         BigInteger response1, String prefix, BigInteger publicCred, WrappedPublicKey publicKey) {
-
         var group = publicKey.group();
-        var a0 = group.g().modPow(response0, group.p()).multiply(alpha0.modPow(challenge0, group.p())).mod(group.p());
-        var b0 = publicKey.y().modPow(response0, group.p())
-            .multiply(beta0.multiply(group.g().modInverse(group.p()))
-                .modPow(challenge0, group.p()))
-            .mod(group.p());
-        var aSigma = group.g().modPow(response1, group.p())
-            .multiply(alphaSigma.modPow(challenge1, group.p()))
-            .mod(group.p());
-        var bSigma = publicKey.y().modPow(response1, group.p())
-            .multiply(betaSigma.multiply(group.g().modInverse(group.p()))
-                .modPow(challenge1, group.p()))
-            .mod(group.p());
-
-        String message = String.format("bproof1|%s|%s|%s,%s,%s,%s", publicCred, prefix, a0, b0, aSigma, bSigma);
-        var checksum = checksum(message, group.q());
+        return verifyOverallProof(group, FixedBaseExp.generator(group), FixedBaseExp.publicKey(publicKey),
+            alpha0, beta0, alphaSigma, betaSigma, challenge0, response0, challenge1, response1, prefix, publicCred,
+            false);
+    }
+
+    private static boolean verifyOverallProof(Group group, FixedBaseExp gExp, FixedBaseExp yExp,
+        BigInteger alpha0, BigInteger beta0, BigInteger alphaSigma, BigInteger betaSigma, BigInteger challenge0,
+        BigInteger response0, BigInteger challenge1, BigInteger response1, String prefix, BigInteger publicCred,
+        boolean members) {
+        long start = System.nanoTime();
+        var a0 = MultiExp.pow(gExp, response0, alpha0, challenge0, group, members);
+        // y^r * (beta / g)^c = y^r * g^-c * beta^c
+        var b0 = MultiExp.of(group, members)
+            .fixed(yExp, response0)
+            .fixed(gExp, challenge0.negate())
+            .variable(beta0, challenge0)
+            .result();
+        var aSigma = MultiExp.pow(gExp, response1, alphaSigma, challenge1, group, members);
+        var bSigma = MultiExp.of(group, members)
+            .fixed(yExp, response1)
+            .fixed(gExp, challenge1.negate())
+            .variable(betaSigma, challenge1)
+            .result();
+
+        var checksum = Transcript.start("bproof1")
+            .section().add(publicCred)
+            .section().add(prefix)
+            .section().add(a0).add(b0).add(aSigma).add(bSigma)
+            .checksum(group.q());
 
         var challenges = challenge0.add(challenge1).mod(group.q());
-        return challenges.equals(checksum);
+        var isValid = challenges.equals(checksum);
+        Metrics.OVERALL_PROOF.record(start);
+        return isValid;
     }
 
     public static boolean verifySignature(Ballot ballot, Election election) {
@@ -218,15 +481,40 @@ public class VerifyBallot {
     }
 
     public static boolean verifySignature(Signature signature, List<Answer> answers, Group group) {
-        var a = group.g().modPow(signature.response(), group.p())
-            .multiply(signature.publicKey().modPow(signature.challenge(), group.p())).mod(group.p());
+        return verifySignature(signature, answers, group, FixedBaseExp.generator(group), false);
+    }
 
-        var text = answers.stream().flatMap(answer -> answer.choices().stream())
-            .map(c -> c.alpha() + "," + c.beta())
-            .collect(joining(","));
+    public static boolean verifySignature(Signature signature, List<Answer> answers, ElectionContext context) {
+        return verifySignature(signature, answers, context, false);
+    }
+
+    /**
+     * @param members
+     *            true if the public credential is known to be an element of the subgroup
+     */
+    static boolean verifySignature(Signature signature, List<Answer> answers, ElectionContext context,
+        boolean members) {
+        return verifySignature(signature, answers, context.group(), context.gExp(), members);
+    }
 
-        var message = String.format("sig|%s|%s|%s", signature.publicKey(), a, text);
-        var checksum = checksum(message, group.q());
-        return signature.challenge().equals(checksum);
+    private static boolean verifySignature(Signature signature, List<Answer> answers, Group group,
+        FixedBaseExp gExp, boolean members) {
+        long start = System.nanoTime();
+        var a = MultiExp.pow(gExp, signature.response(), signature.publicKey(), signature.challenge(), group,
+            members);
+
+        var transcript = Transcript.start("sig")
+            .section().add(signature.publicKey())
+            .section().add(a)
+            .section();
+        for (Answer answer: answers) {
+            for (Ciphertext c: answer.choices()) {
+                transcript.add(c.alpha()).add(c.beta());
+            }
+        }
+        var checksum = transcript.checksum(group.q());
+        var isValid = signature.challenge().equals(checksum);
+        Metrics.SIGNATURE.record(start);
+        return isValid;
     }
 }
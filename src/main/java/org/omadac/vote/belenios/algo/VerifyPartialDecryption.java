@@ -0,0 +1,189 @@
+package org.omadac.vote.belenios.algo;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.omadac.vote.belenios.model.Ciphertext;
+import org.omadac.vote.belenios.model.Group;
+import org.omadac.vote.belenios.model.PartialDecryption;
+import org.omadac.vote.belenios.model.Proof;
+
+/**
+ * Verifies the partial decryptions of all trustees against an encrypted tally.
+ * <p>
+ * The proofs are transmitted as (challenge, response) pairs. Verification must recompute both
+ * commitments of every cell exactly to re-hash them, so the cells of a trustee cannot be merged into
+ * a randomized linear combination with a single final check. Instead, a fixed-base table for the
+ * public key of each trustee is built once, so that g^r * y^-c only needs table lookups, and the
+ * cells of all trustees are verified in parallel. A trustee key is only used as a fixed base after
+ * checking that it is an element of the subgroup of order q, since the exponents of fixed bases are
+ * reduced modulo q. Decryption factors and ciphertexts are variable bases, whose exponents are not
+ * reduced, so a negative exponent costs a modular inverse.
+ */
+public class VerifyPartialDecryption {
+
+    private final Group group;
+
+    private final List<List<Ciphertext>> encryptedTally;
+
+    private final FixedBaseExp gExp;
+
+    public VerifyPartialDecryption(Group group, List<List<Ciphertext>> encryptedTally) {
+        this.group = group;
+        this.encryptedTally = encryptedTally;
+        this.gExp = FixedBaseExp.generator(group);
+    }
+
+    /**
+     * Finds the trustee of each partial decryption.
+     *
+     * @param trusteeKeys
+     *            public keys of all trustees
+     * @return for each partial decryption, the index of the trustee whose key verifies all its cells,
+     *         or -1 if there is no such trustee. Each trustee is matched at most once.
+     */
+    public int[] match(List<BigInteger> trusteeKeys, List<PartialDecryption> decryptions, int threads) {
+        List<FixedBaseExp> yExps = new ArrayList<>();
+        for (BigInteger y: trusteeKeys) {
+            yExps.add(trusteeExp(y));
+        }
+
+        var pool = new ForkJoinPool(threads);
+        try {
+            var used = new boolean[trusteeKeys.size()];
+            var matches = new int[decryptions.size()];
+            for (int d = 0; d < decryptions.size(); d++) {
+                matches[d] = -1;
+                var decryption = decryptions.get(d);
+                for (int t = 0; t < trusteeKeys.size() && matches[d] < 0; t++) {
+                    if (!used[t] && yExps.get(t) != null && verifyFirstCell(yExps.get(t), decryption)
+                        && verify(yExps.get(t), decryption, pool)) {
+                        used[t] = true;
+                        matches[d] = t;
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Verifies all cells of a partial decryption against the public key of a trustee.
+     */
+    public boolean verify(BigInteger trusteeKey, PartialDecryption decryption, int threads) {
+        var yExp = trusteeExp(trusteeKey);
+        if (yExp == null) {
+            return false;
+        }
+        var pool = new ForkJoinPool(threads);
+        try {
+            return verify(yExp, decryption, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return the fixed-base table of a trustee key, or null if the key is not an element of the
+     *         subgroup of order q
+     */
+    private FixedBaseExp trusteeExp(BigInteger y) {
+        var p = group.p();
+        if (y == null || y.signum() <= 0 || y.compareTo(p) >= 0 || !y.modPow(group.q(), p).equals(BigInteger.ONE)) {
+            return null;
+        }
+        return new FixedBaseExp(y, gExp.montgomery(), group.q().bitLength());
+    }
+
+    private boolean verifyFirstCell(FixedBaseExp yExp, PartialDecryption decryption) {
+        if (!hasTallyShape(decryption)) {
+            return false;
+        }
+        for (int i = 0; i < encryptedTally.size(); i++) {
+            if (!encryptedTally.get(i).isEmpty()) {
+                return verifyCell(yExp, encryptedTally.get(i).get(0), decryption.decryptionFactors().get(i).get(0),
+                    decryption.decryptionProofs().get(i).get(0), i, 0);
+            }
+        }
+        return true;
+    }
+
+    private boolean verify(FixedBaseExp yExp, PartialDecryption decryption, ForkJoinPool pool) {
+        if (!hasTallyShape(decryption)) {
+            return false;
+        }
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < encryptedTally.size(); i++) {
+            List<Ciphertext> tallyItem = encryptedTally.get(i);
+            List<BigInteger> factors = decryption.decryptionFactors().get(i);
+            List<Proof> proofs = decryption.decryptionProofs().get(i);
+            for (int j = 0; j < tallyItem.size(); j++) {
+                var ct = tallyItem.get(j);
+                var factor = factors.get(j);
+                var proof = proofs.get(j);
+                int question = i;
+                int choice = j;
+                tasks.add(() -> verifyCell(yExp, ct, factor, proof, question, choice));
+            }
+        }
+        try {
+            for (Future<Boolean> future: pool.invokeAll(tasks)) {
+                if (!future.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("verification interrupted", exc);
+        } catch (ExecutionException exc) {
+            return false;
+        }
+    }
+
+    private boolean hasTallyShape(PartialDecryption decryption) {
+        var factors = decryption.decryptionFactors();
+        var proofs = decryption.decryptionProofs();
+        if (factors.size() != encryptedTally.size() || proofs.size() != encryptedTally.size()) {
+            return false;
+        }
+        for (int i = 0; i < encryptedTally.size(); i++) {
+            int size = encryptedTally.get(i).size();
+            if (factors.get(i).size() != size || proofs.get(i).size() != size) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean verifyCell(FixedBaseExp yExp, Ciphertext ct, BigInteger factor, Proof proof, int question,
+        int choice) {
+        var event = ProofEvent.start("decryption", -1, question, choice);
+        long start = System.nanoTime();
+        var challenge = proof.challenge().negate();
+        // g^r * y^-c
+        var a = MultiExp.of(group)
+            .fixed(gExp, proof.response())
+            .fixed(yExp, challenge)
+            .result();
+        // alpha^r * factor^-c
+        var b = MultiExp.of(group)
+            .variable(ct.alpha(), proof.response())
+            .variable(factor, challenge)
+            .result();
+        var checksum = Transcript.start("decrypt")
+            .section().add(yExp.base())
+            .section().add(a).add(b)
+            .checksum(group.q());
+        var isValid = checksum.equals(proof.challenge());
+        Metrics.DECRYPTION_PROOF.record(start);
+        return event.finish(isValid);
+    }
+}
@@ -6,12 +6,16 @@ import picocli.CommandLine.Command;
 
 @TopCommand
 @Command(name = "belenios-tool", mixinStandardHelpOptions = true, versionProvider = VersionProvider.class, description = "Election management tool", subcommands = {
+    ConvertBallots.class,
     Credgen.class,
     Decrypt.class,
     GenerateToken.class,
     Mkelection.class,
     Mktrustees.class,
+    Serve.class,
     Sha256B64.class,
+    ShowBallot.class,
+    Tally.class,
     TrusteeKeygen.class,
     Validate.class,
     Verify.class,
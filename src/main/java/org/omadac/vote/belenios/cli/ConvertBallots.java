@@ -0,0 +1,41 @@
+package org.omadac.vote.belenios.cli;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+import org.omadac.vote.belenios.algo.BallotFiles;
+import org.omadac.vote.belenios.algo.JsonMapper;
+import org.omadac.vote.belenios.model.Election;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "convert-ballots", mixinStandardHelpOptions = true, description = "Converts a ballot file between "
+    + "the JSON format of ballots.jsons and the compact binary format. The direction is determined by the "
+    + "format of the input file. Uses the group of election.json.\n")
+public class ConvertBallots implements Callable<Integer> {
+
+    @Option(names = {"--input"}, description = "Read ballots from FILE", required = true)
+    private File input;
+
+    @Option(names = {"--output"}, description = "Write converted ballots to FILE", required = true)
+    private File output;
+
+    @Override
+    public Integer call() throws Exception {
+        var electionFile = new File("election.json");
+        if (!Validate.checkFiles(electionFile, input)) {
+            return 1;
+        }
+
+        int numBallots;
+        if (BallotFiles.isBinary(input.toPath())) {
+            numBallots = BallotFiles.toJson(input.toPath(), output.toPath());
+        } else {
+            var election = JsonMapper.fromJson(electionFile, Election.class);
+            numBallots = BallotFiles.toBinary(election, input.toPath(), output.toPath());
+        }
+        System.err.println("Converted " + numBallots + " ballots");
+        return 0;
+    }
+}
@@ -1,18 +1,16 @@
 package org.omadac.vote.belenios.cli;
 
-import static java.util.stream.Collectors.toList;
-
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Instant;
-import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.omadac.vote.belenios.algo.GenCredentials;
 import org.omadac.vote.belenios.algo.JsonMapper;
-import org.omadac.vote.belenios.model.Credentials;
+import org.omadac.vote.belenios.algo.ParallelCredentials;
 import org.omadac.vote.belenios.model.Group;
 
 import picocli.CommandLine.ArgGroup;
@@ -34,6 +32,9 @@ public class Credgen implements Callable<Integer> {
     @Option(names = {"--uuid"}, description = "UUID of the election", required = true)
     private String uuid;
 
+    @Option(names = {"--threads"}, description = "Number of generator threads (default: number of cores)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
     @ArgGroup(exclusive = true, multiplicity = "1")
     private Exclusive exclusive;
 
@@ -60,46 +61,45 @@ public class Credgen implements Callable<Integer> {
             System.out.println(publicKey);
             return 0;
         }
-        List<String> ids = null;
+        if (threads <= 0) {
+            System.err.println("--threads must be positive");
+            return 1;
+        }
+        Stream<String> ids;
         if (exclusive.count != null) {
             if (exclusive.count <= 0) {
                 System.err.println("--count must be positive");
                 return 1;
             }
-            ids = IntStream.rangeClosed(1, exclusive.count).mapToObj(Integer::toString).collect(toList());
-
-        } else if (exclusive.file != null) {
-            ids = Files.readAllLines(exclusive.file.toPath());
+            ids = IntStream.rangeClosed(1, exclusive.count).mapToObj(Integer::toString);
+        } else {
+            ids = Files.lines(exclusive.file.toPath());
         }
-        List<Credentials> credentials = ids.stream()
-            .filter(id -> !id.isBlank())
-            .map(id -> GenCredentials.generate(uuid, g)).collect(toList());
         var epochSecond = Instant.now().getEpochSecond();
 
-        var privCreds = new StringBuilder();
-        var pubCreds = new StringBuilder();
-        for (int i = 0; i < ids.size(); i++) {
-            String weight = null;
-            String id = ids.get(i);
-            String[] parts = id.split(",");
-            if (parts.length == 3) {
-                weight = parts[2];
-            }
-            Credentials creds = credentials.get(i);
-            privCreds.append(id);
-            privCreds.append(" ");
-            privCreds.append(creds.privateCred());
-            privCreds.append("\n");
-
-            pubCreds.append(creds.publicCred());
-            if (weight != null) {
-                pubCreds.append(",");
-                pubCreds.append(weight);
-            }
-            pubCreds.append("\n");
+        try (ids;
+            var privCreds = Files.newBufferedWriter(Paths.get(epochSecond + ".privcreds"));
+            var pubCreds = Files.newBufferedWriter(Paths.get(epochSecond + ".pubcreds"))) {
+            var nonBlankIds = ids.filter(id -> !id.isBlank()).iterator();
+            ParallelCredentials.generate(uuid, g, nonBlankIds, threads, (id, creds) -> {
+                String weight = null;
+                String[] parts = id.split(",");
+                if (parts.length == 3) {
+                    weight = parts[2];
+                }
+                privCreds.write(id);
+                privCreds.write(' ');
+                privCreds.write(creds.privateCred());
+                privCreds.write('\n');
+
+                pubCreds.write(creds.publicCred().toString());
+                if (weight != null) {
+                    pubCreds.write(',');
+                    pubCreds.write(weight);
+                }
+                pubCreds.write('\n');
+            });
         }
-        Files.writeString(Paths.get(epochSecond + ".privcreds"), privCreds);
-        Files.writeString(Paths.get(epochSecond + ".pubcreds"), pubCreds);
         return 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package org.omadac.vote.belenios.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.ParseException;
+
+import org.omadac.vote.belenios.algo.Metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import picocli.CommandLine.Option;
+
+/**
+ * Options for reporting {@link Metrics} and recording JDK Flight Recorder events while a command
+ * runs. {@link #start()} must be called before and {@link #finish()} after the work of the command.
+ */
+public class DiagnosticsOptions {
+
+    @Option(names = {"--metrics"}, description = "Print a summary of timings and counters to standard error at the end")
+    private boolean summary;
+
+    @Option(names = {"--metrics-file"}, description = "Write all metrics to FILE in Prometheus text format at the end")
+    private File metricsFile;
+
+    @Option(names = {"--jfr"}, description = "Record a flight recording with the Belenios events to FILE, "
+        + "for JDK Mission Control")
+    private File jfrFile;
+
+    private Recording recording;
+
+    public void start() throws IOException, ParseException {
+        if (jfrFile != null) {
+            recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("belenios");
+            recording.setDestination(jfrFile.toPath());
+            recording.start();
+        }
+    }
+
+    public void finish() {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+            recording = null;
+            System.err.println("Flight recording written to " + jfrFile);
+        }
+        if (summary) {
+            System.err.print(Metrics.summary());
+        }
+        if (metricsFile != null) {
+            try {
+                Files.writeString(metricsFile.toPath(), Metrics.prometheus(), UTF_8);
+            } catch (IOException exc) {
+                System.err.println("Cannot write metrics to " + metricsFile + ": " + exc.getMessage());
+            }
+        }
+    }
+}
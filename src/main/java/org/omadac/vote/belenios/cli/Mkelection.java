@@ -40,7 +40,7 @@ public class Mkelection implements Callable<Integer> {
             .mod(g.p());
         var publicKey = WrappedPublicKey.builder().y(y).group(g).build();
         election = election.withPublicKey(publicKey).withUuid(uuid);
-        JsonMapper.INSTANCE.writeValue(new File("election.json"), election);
+        JsonMapper.CANONICAL.writeValue(new File("election.json"), election);
         return 0;
     }
 }
\ No newline at end of file
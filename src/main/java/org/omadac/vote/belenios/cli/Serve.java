@@ -0,0 +1,199 @@
+package org.omadac.vote.belenios.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.omadac.vote.belenios.algo.BallotBox;
+import org.omadac.vote.belenios.algo.CredentialRegistry;
+import org.omadac.vote.belenios.algo.ElectionContext;
+import org.omadac.vote.belenios.algo.JsonMapper;
+import org.omadac.vote.belenios.algo.Metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+@Command(name = "serve", mixinStandardHelpOptions = true, description = "Runs a ballot box server for election.json. "
+    + "POST /ballots verifies a ballot, appends it to the ballots file and returns a receipt, "
+    + "GET /election returns the election and GET /metrics returns metrics in Prometheus text format. "
+    + "Requests are refused with status 503 while the request queue or the verification queue is full.\n")
+public class Serve implements Callable<Integer> {
+
+    private static final int MAX_BALLOT_SIZE = 1 << 20;
+
+    /**
+     * Set while a request refused by the full HTTP worker pool is handled on the dispatcher thread,
+     * so that it is answered with 503 at once.
+     */
+    private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> false);
+
+    @Option(names = {"--address"}, description = "Listen on ADDRESS (default: 127.0.0.1)")
+    private String address = "127.0.0.1";
+
+    @Option(names = {"--port"}, description = "Listen on PORT (default: 8080)")
+    private int port = 8080;
+
+    @Option(names = {"--ballots"}, description = "Append accepted ballots to FILE in JSON format (default: ballots.jsons)")
+    private File ballotsFile = new File("ballots.jsons");
+
+    @Option(names = {"--public-creds"}, description = "Accept only credentials in FILE (default: public_creds.txt)")
+    private File publicCredsFile = new File("public_creds.txt");
+
+    @Option(names = {"--threads"}, description = "Number of verification threads (default: number of cores)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"--queue"}, description = "Maximum number of ballots waiting for verification, "
+        + "and of requests waiting for an HTTP thread (default: 4096)")
+    private int queue = 4096;
+
+    @Mixin
+    private DiagnosticsOptions diagnostics;
+
+    private BallotBox ballotBox;
+
+    private ThreadPoolExecutor httpExecutor;
+
+    private byte[] electionJson;
+
+    @Override
+    public Integer call() throws Exception {
+        var electionFile = new File("election.json");
+        if (!Validate.checkFiles(electionFile, publicCredsFile)) {
+            return 1;
+        }
+        if (threads <= 0 || queue <= 0) {
+            System.err.println("--threads and --queue must be positive");
+            return 1;
+        }
+
+        diagnostics.start();
+        var json = Files.readString(electionFile.toPath(), UTF_8).strip();
+        electionJson = json.getBytes(UTF_8);
+        var context = ElectionContext.fromJson(json);
+        var credentials = CredentialRegistry.read(publicCredsFile.toPath());
+        ballotBox = new BallotBox(context, credentials::contains, ballotsFile.toPath(), threads, queue);
+
+        int httpThreads = Runtime.getRuntime().availableProcessors();
+        httpExecutor = new ThreadPoolExecutor(httpThreads, httpThreads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queue), (task, executor) -> {
+                OVERLOADED.set(true);
+                try {
+                    task.run();
+                } finally {
+                    OVERLOADED.set(false);
+                }
+            });
+        var server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext("/ballots", this::submitBallot);
+        server.createContext("/election", this::getElection);
+        server.createContext("/metrics", this::getMetrics);
+        server.setExecutor(httpExecutor);
+
+        var stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            try {
+                ballotBox.close();
+            } catch (IOException exc) {
+                System.err.println("Cannot close " + ballotsFile + ": " + exc.getMessage());
+            }
+            httpExecutor.shutdown();
+            System.err.println("Stored " + ballotBox.numBallots() + " ballots");
+            diagnostics.finish();
+            stopped.countDown();
+        }));
+        server.start();
+        System.err.println("Serving election " + context.election().uuid() + " on http://" + address + ":"
+            + server.getAddress().getPort() + "/ with " + ballotBox.numBallots() + " ballots");
+        stopped.await();
+        return 0;
+    }
+
+    private void getElection(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "method not allowed");
+            return;
+        }
+        send(exchange, 200, electionJson);
+    }
+
+    private void getMetrics(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "method not allowed");
+            return;
+        }
+        var text = Metrics.prometheus().getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(200, text.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(text);
+        }
+    }
+
+    private void submitBallot(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "method not allowed");
+            return;
+        }
+        if (OVERLOADED.get()) {
+            sendBusy(exchange);
+            return;
+        }
+        byte[] body;
+        try (var in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BALLOT_SIZE + 1);
+        }
+        if (body.length > MAX_BALLOT_SIZE) {
+            sendError(exchange, 413, "ballot too large");
+            return;
+        }
+        try {
+            ballotBox.submit(new String(body, UTF_8)).whenCompleteAsync((receipt, exc) -> {
+                try {
+                    if (exc == null) {
+                        send(exchange, 200, JsonMapper.INSTANCE.writeValueAsBytes(receipt));
+                    } else {
+                        var cause = exc instanceof CompletionException ? exc.getCause() : exc;
+                        sendError(exchange, cause instanceof IllegalArgumentException ? 400 : 500, cause.getMessage());
+                    }
+                } catch (IOException ioExc) {
+                    exchange.close();
+                }
+            }, httpExecutor);
+        } catch (RejectedExecutionException exc) {
+            sendBusy(exchange);
+        }
+    }
+
+    private static void sendBusy(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "ballot box is busy");
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String reason) throws IOException {
+        send(exchange, status, JsonMapper.INSTANCE.writeValueAsBytes(Map.of("error", reason)));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.omadac.vote.belenios.cli;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.concurrent.Callable;
+
+import org.omadac.vote.belenios.algo.BallotArchive;
+import org.omadac.vote.belenios.algo.BallotFiles;
+import org.omadac.vote.belenios.algo.JsonMapper;
+
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "show-ballot", mixinStandardHelpOptions = true, description = "Looks up ballots in a binary ballot "
+    + "file by ordinal or by public credential and prints them to standard output, one per line. The index "
+    + "FILE.idx is created or updated when needed.\n")
+public class ShowBallot implements Callable<Integer> {
+
+    @Option(names = {"--ballots"}, description = "Read ballots from binary FILE", required = true)
+    private File ballotsFile;
+
+    @ArgGroup(exclusive = true, multiplicity = "1")
+    private Exclusive exclusive;
+
+    static class Exclusive {
+
+        @Option(names = {"--ordinal"}, description = "Show the ballot with ordinal N, starting from 0")
+        private Integer ordinal;
+
+        @Option(names = {"--credential"}, description = "Show all ballots with public credential CRED")
+        private BigInteger publicCred;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        if (!Validate.checkFiles(ballotsFile)) {
+            return 1;
+        }
+        if (!BallotFiles.isBinary(ballotsFile.toPath())) {
+            System.err.println("File " + ballotsFile + " is not a binary ballot file, use convert-ballots");
+            return 1;
+        }
+
+        try (var archive = BallotArchive.open(ballotsFile.toPath())) {
+            if (exclusive.ordinal != null) {
+                if (exclusive.ordinal < 0 || exclusive.ordinal >= archive.numBallots()) {
+                    System.err.println("No ballot with ordinal " + exclusive.ordinal);
+                    return 1;
+                }
+                System.out.println(JsonMapper.INSTANCE.writeValueAsString(archive.ballot(exclusive.ordinal)));
+                return 0;
+            }
+            var ordinals = archive.ordinals(exclusive.publicCred);
+            if (ordinals.length == 0) {
+                System.err.println("No ballot with public credential " + exclusive.publicCred);
+                return 1;
+            }
+            for (int ordinal: ordinals) {
+                System.out.println(JsonMapper.INSTANCE.writeValueAsString(archive.ballot(ordinal)));
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.omadac.vote.belenios.cli;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+import org.omadac.vote.belenios.algo.CredentialRegistry;
+import org.omadac.vote.belenios.algo.IncrementalTally;
+import org.omadac.vote.belenios.algo.JsonMapper;
+import org.omadac.vote.belenios.model.Election;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+@Command(name = "tally", mixinStandardHelpOptions = true, description = "Updates a running encrypted tally with "
+    + "the ballots appended to the ballots file since the last checkpoint and prints the encrypted tally to "
+    + "standard output. Only the newest ballot of each credential is counted, and ballots with an unknown "
+    + "credential are skipped.\n")
+public class Tally implements Callable<Integer> {
+
+    @Option(names = {"--ballots"}, description = "Read ballots from FILE, in JSON or binary format (default: ballots.jsons)")
+    private File ballotsFile = new File("ballots.jsons");
+
+    @Option(names = {"--checkpoint"}, description = "Keep the running tally in FILE (default: tally_checkpoint.json)")
+    private File checkpointFile = new File("tally_checkpoint.json");
+
+    @Option(names = {"--interval"}, description = "Write a checkpoint every N ballots (default: 10000)")
+    private int interval = IncrementalTally.DEFAULT_INTERVAL;
+
+    @Option(names = {"--verify"}, description = "Check the hash of the ballots covered by the checkpoint before updating")
+    private boolean verify;
+
+    @Mixin
+    private DiagnosticsOptions diagnostics;
+
+    @Override
+    public Integer call() throws Exception {
+        diagnostics.start();
+        try {
+            return run();
+        } finally {
+            diagnostics.finish();
+        }
+    }
+
+    private Integer run() throws Exception {
+        var electionFile = new File("election.json");
+        var publicCredsFile = new File("public_creds.txt");
+        if (!Validate.checkFiles(electionFile, ballotsFile, publicCredsFile)) {
+            return 1;
+        }
+        if (interval <= 0) {
+            System.err.println("--interval must be positive");
+            return 1;
+        }
+
+        var election = JsonMapper.fromJson(electionFile, Election.class);
+        var credentials = CredentialRegistry.read(publicCredsFile.toPath());
+        var tally = new IncrementalTally(election, ballotsFile.toPath(), checkpointFile.toPath(),
+            credentials::weight, interval);
+        if (verify && !tally.verify()) {
+            System.err.println("Ballots file " + ballotsFile + " does not match checkpoint " + checkpointFile);
+            return 1;
+        }
+        int before = tally.checkpoint().numBallots();
+        var checkpoint = tally.update();
+        System.err.println("Absorbed " + (checkpoint.numBallots() - before) + " ballots, "
+            + checkpoint.numBallots() + " in total, " + checkpoint.numSuperseded() + " superseded, "
+            + checkpoint.numUnknown() + " with unknown credential");
+        System.out.println(JsonMapper.INSTANCE.writeValueAsString(checkpoint.encryptedTally()));
+        return 0;
+    }
+}
@@ -1,27 +1,30 @@
 package org.omadac.vote.belenios.cli;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 
 import java.io.File;
 import java.math.BigInteger;
 import java.nio.file.Files;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 
-import org.graalvm.collections.Pair;
 import org.omadac.vote.belenios.algo.CreateElectionResult;
-import org.omadac.vote.belenios.algo.CreateEncryptedTally;
+import org.omadac.vote.belenios.algo.CredentialRegistry;
 import org.omadac.vote.belenios.algo.JsonMapper;
-import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.algo.ParallelTally;
+import org.omadac.vote.belenios.algo.RevoteIndex;
+import org.omadac.vote.belenios.algo.TallyAccumulator;
+import org.omadac.vote.belenios.algo.Trustees;
+import org.omadac.vote.belenios.algo.VerifyPartialDecryption;
 import org.omadac.vote.belenios.model.Ciphertext;
 import org.omadac.vote.belenios.model.Election;
 import org.omadac.vote.belenios.model.PartialDecryption;
-import org.omadac.vote.belenios.model.WeightedBallot;
+import org.omadac.vote.belenios.model.TrusteePublicKey;
 
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
 
 @Command(name = "validate", mixinStandardHelpOptions = true, description = "Reads partial decryptions done by trustees from file "
     + "partial_decryptions.jsons, checks them, combines them into the final "
@@ -30,6 +33,15 @@ import picocli.CommandLine.Command;
     + "partial_decryptions.jsons can be discarded afterwards.\n")
 public class Validate implements Callable<Integer> {
 
+    @Option(names = {"--ballots"}, description = "Read ballots from FILE, in JSON or binary format (default: ballots.jsons)")
+    private File ballotsFile = new File("ballots.jsons");
+
+    @Option(names = {"--threads"}, description = "Number of tally and verification threads (default: number of cores)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Mixin
+    private DiagnosticsOptions diagnostics;
+
     public static boolean checkFiles(File... files) {
         for (File file: files) {
             if (!file.exists()) {
@@ -40,23 +52,27 @@ public class Validate implements Callable<Integer> {
         return true;
     }
 
-    private Pair<BigInteger, Integer> pubKeyWithWeight(String line) {
-        String[] parts = line.split(",");
-        if (parts.length == 2) {
-            return Pair.create(new BigInteger(parts[0]), Integer.parseInt(parts[1]));
-        } else {
-            return Pair.create(new BigInteger(parts[0]), 1);
+    @Override
+    public Integer call() throws Exception {
+        diagnostics.start();
+        try {
+            return run();
+        } finally {
+            diagnostics.finish();
         }
     }
 
-    @Override
-    public Integer call() throws Exception {
+    private Integer run() throws Exception {
         var electionFile = new File("election.json");
-        var ballotsFile = new File("ballots.jsons");
         var partialDecryptionsFile = new File("partial_decryptions.jsons");
         var publicCredsFile = new File("public_creds.txt");
+        var trusteesFile = new File("trustees.json");
 
-        if (!checkFiles(electionFile, ballotsFile, partialDecryptionsFile, publicCredsFile)) {
+        if (!checkFiles(electionFile, ballotsFile, partialDecryptionsFile, publicCredsFile, trusteesFile)) {
+            return 1;
+        }
+        if (threads <= 0) {
+            System.err.println("--threads must be positive");
             return 1;
         }
 
@@ -65,19 +81,35 @@ public class Validate implements Callable<Integer> {
             .map(pd -> JsonMapper.fromJson(pd, PartialDecryption.class))
             .collect(toList());
 
-        List<Ballot> ballots = Files.lines(ballotsFile.toPath(), UTF_8)
-            .map(b -> JsonMapper.fromJson(b, Ballot.class))
-            .collect(toList());
-
-        Map<BigInteger, Integer> pubKeysWithWeights = Files.lines(publicCredsFile.toPath()).map(line -> pubKeyWithWeight(line))
-            .collect(toMap(Pair::getLeft, Pair::getRight));
+        var credentials = CredentialRegistry.read(publicCredsFile.toPath());
 
-        var weightedBallots = ballots.stream()
-            .map(b -> WeightedBallot.builder().ballot(b).weight(pubKeysWithWeights.get(b.signature().publicKey())).build()).collect(toList());
+        var revotes = RevoteIndex.build(ballotsFile.toPath());
+        if (revotes.numSuperseded() > 0) {
+            System.err.println("Ignoring " + revotes.numSuperseded() + " superseded ballots");
+        }
+        TallyAccumulator tally = ParallelTally.tallyLatest(election, ballotsFile.toPath(),
+            credentials::weight, revotes, threads);
+        List<List<Ciphertext>> encryptedTally = tally.snapshot();
 
-        List<List<Ciphertext>> encryptedTally = CreateEncryptedTally.tallyWeighted(election, weightedBallots.stream());
+        int numTallied = Math.toIntExact(tally.totalWeight());
 
-        int numTallied = weightedBallots.stream().map(wb -> wb.weight()).reduce(0, Integer::sum);
+        List<BigInteger> trusteeKeys = Trustees.readTrustees(trusteesFile).stream()
+            .filter(Objects::nonNull)
+            .map(TrusteePublicKey::publicKey)
+            .collect(toList());
+        if (partialDecryptions.size() != trusteeKeys.size()) {
+            System.err.println("Expected " + trusteeKeys.size() + " partial decryptions, found "
+                + partialDecryptions.size());
+            return 1;
+        }
+        var verifier = new VerifyPartialDecryption(election.publicKey().group(), encryptedTally);
+        var trustees = verifier.match(trusteeKeys, partialDecryptions, threads);
+        for (int i = 0; i < trustees.length; i++) {
+            if (trustees[i] < 0) {
+                System.err.println("Partial decryption " + (i + 1) + " is not valid for any trustee");
+                return 1;
+            }
+        }
 
         var result = CreateElectionResult.createResult(election, numTallied, encryptedTally, partialDecryptions);
         JsonMapper.INSTANCE.writeValue(new File("result.json"), result);
@@ -1,14 +1,72 @@
 package org.omadac.vote.belenios.cli;
 
+import java.io.File;
+import java.math.BigInteger;
 import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+import org.omadac.vote.belenios.algo.BallotFiles;
+import org.omadac.vote.belenios.algo.CredentialRegistry;
+import org.omadac.vote.belenios.algo.ElectionContext;
+import org.omadac.vote.belenios.algo.JsonMapper;
+import org.omadac.vote.belenios.algo.ParallelVerifyBallot;
 
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
 
-@Command(name = "verify", mixinStandardHelpOptions = true, description = "noop\n")
+@Command(name = "verify", mixinStandardHelpOptions = true, description = "Verifies all ballots in ballots.jsons "
+    + "against election.json and prints a report of accepted and rejected ballots to standard output.\n")
 public class Verify implements Callable<Integer> {
 
+    @Option(names = {"--ballots"}, description = "Read ballots from FILE, in JSON or binary format (default: ballots.jsons)")
+    private File ballotsFile = new File("ballots.jsons");
+
+    @Option(names = {"--public-creds"}, description = "Reject ballots whose credential is not in FILE "
+        + "(default: public_creds.txt, if it exists)")
+    private File publicCredsFile;
+
+    @Option(names = {"--threads"}, description = "Number of verification threads (default: number of cores)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Mixin
+    private DiagnosticsOptions diagnostics;
+
     @Override
     public Integer call() throws Exception {
-        return 0;
+        diagnostics.start();
+        try {
+            return run();
+        } finally {
+            diagnostics.finish();
+        }
+    }
+
+    private Integer run() throws Exception {
+        var electionFile = new File("election.json");
+        if (!Validate.checkFiles(electionFile, ballotsFile)) {
+            return 1;
+        }
+        if (threads <= 0) {
+            System.err.println("--threads must be positive");
+            return 1;
+        }
+
+        var context = ElectionContext.read(electionFile.toPath());
+        Predicate<BigInteger> knownCredentials = publicCred -> true;
+        if (publicCredsFile == null && new File("public_creds.txt").exists()) {
+            publicCredsFile = new File("public_creds.txt");
+        }
+        if (publicCredsFile != null) {
+            if (!Validate.checkFiles(publicCredsFile)) {
+                return 1;
+            }
+            knownCredentials = CredentialRegistry.read(publicCredsFile.toPath())::contains;
+        }
+        try (var ballots = BallotFiles.readBallots(ballotsFile.toPath())) {
+            var report = ParallelVerifyBallot.verify(context, ballots, knownCredentials, threads);
+            System.out.println(JsonMapper.INSTANCE.writeValueAsString(report));
+            return report.rejected().isEmpty() ? 0 : 1;
+        }
     }
-}
\ No newline at end of file
+}
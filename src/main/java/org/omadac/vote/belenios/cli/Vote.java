@@ -3,18 +3,20 @@ package org.omadac.vote.belenios.cli;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.concurrent.Callable;
 
 import org.omadac.vote.belenios.algo.CreateBallot;
+import org.omadac.vote.belenios.algo.ElectionContext;
 import org.omadac.vote.belenios.algo.GenCredentials;
 import org.omadac.vote.belenios.algo.JsonMapper;
 import org.omadac.vote.belenios.model.Credentials;
-import org.omadac.vote.belenios.model.Election;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 
 @Command(name = "vote", mixinStandardHelpOptions = true, description = "Creates a ballot and prints it on standard output.\n")
@@ -26,8 +28,20 @@ public class Vote implements Callable<Integer> {
     @Option(names = {"--privcred"}, description = "Read private credential from file PRIV_CRED", required = true)
     private File privcred;
 
+    @Mixin
+    private DiagnosticsOptions diagnostics;
+
     @Override
     public Integer call() throws Exception {
+        diagnostics.start();
+        try {
+            return run();
+        } finally {
+            diagnostics.finish();
+        }
+    }
+
+    private Integer run() throws Exception {
         if (!ballot.exists()) {
             System.err.println("Ballot file " + ballot + " does not exist");
             return 1;
@@ -38,12 +52,13 @@ public class Vote implements Callable<Integer> {
         }
         List<List<Integer>> rawVotes = JsonMapper.INSTANCE.readValue(ballot, new TypeReference<>() {});
         var privateCred = Files.readString(privcred.toPath(), StandardCharsets.UTF_8).trim();
-        var election = JsonMapper.INSTANCE.readValue(new File("election.json"), Election.class);
+        var context = ElectionContext.read(Paths.get("election.json"));
+        var election = context.election();
         var pubCred = GenCredentials.derive(privateCred, election.uuid(), election.publicKey().group());
 
         var credentials = Credentials.builder().privateCred(privateCred).publicCred(pubCred).build();
 
-        var ballot = CreateBallot.createBallot(election, credentials, rawVotes);
+        var ballot = CreateBallot.createBallot(context, credentials, rawVotes);
         var json = JsonMapper.INSTANCE.writeValueAsString(ballot);
         System.out.println(json);
         return 0;
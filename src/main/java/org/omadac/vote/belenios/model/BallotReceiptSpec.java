@@ -0,0 +1,26 @@
+package org.omadac.vote.belenios.model;
+
+import org.immutables.value.Value.Immutable;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+@Immutable
+@ValueStyle
+@JsonDeserialize(builder = BallotReceipt.Builder.class)
+public interface BallotReceiptSpec {
+
+    /**
+     * SHA-256 of the stored ballot in compact Base64, the smart ballot tracker.
+     */
+    String tracker();
+
+    /**
+     * Position of the ballot in the ballots file.
+     */
+    int ordinal();
+
+    /**
+     * True if the ballot replaces an earlier ballot with the same credential.
+     */
+    boolean revote();
+}
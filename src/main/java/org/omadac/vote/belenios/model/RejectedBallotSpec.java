@@ -0,0 +1,15 @@
+package org.omadac.vote.belenios.model;
+
+import org.immutables.value.Value.Immutable;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+@Immutable
+@ValueStyle
+@JsonDeserialize(builder = RejectedBallot.Builder.class)
+public interface RejectedBallotSpec {
+
+    int index();
+
+    String reason();
+}
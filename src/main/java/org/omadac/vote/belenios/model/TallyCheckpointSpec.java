@@ -0,0 +1,62 @@
+package org.omadac.vote.belenios.model;
+
+import java.util.List;
+import java.util.Map;
+
+import org.immutables.value.Value.Immutable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+@Immutable
+@ValueStyle
+@JsonDeserialize(builder = TallyCheckpoint.Builder.class)
+public interface TallyCheckpointSpec {
+
+    @JsonProperty("election_uuid")
+    String electionUuid();
+
+    /**
+     * Number of bytes of the ballots file absorbed into the tally.
+     */
+    long offset();
+
+    /**
+     * Number of ballots in the absorbed part of the ballots file, including superseded ballots and
+     * ballots with an unknown credential.
+     */
+    @JsonProperty("num_ballots")
+    int numBallots();
+
+    /**
+     * Number of ballots replaced by a newer ballot with the same credential, and divided out of the
+     * tally.
+     */
+    @JsonProperty("num_superseded")
+    int numSuperseded();
+
+    /**
+     * Number of ballots with an unknown credential, which are not counted.
+     */
+    @JsonProperty("num_unknown")
+    int numUnknown();
+
+    @JsonProperty("total_weight")
+    long totalWeight();
+
+    /**
+     * Hash chain over the absorbed ballots, see {@code IncrementalTally}.
+     */
+    @JsonProperty("ballots_hash")
+    String ballotsHash();
+
+    @JsonProperty("encrypted_tally")
+    List<List<Ciphertext>> encryptedTally();
+
+    /**
+     * Offset of the newest ballot of each credential in the ballots file, keyed by the Base64
+     * encoding of the 128-bit fingerprint of the credential.
+     */
+    @JsonProperty("latest_offsets")
+    Map<String, Long> latestOffsets();
+}
@@ -0,0 +1,21 @@
+package org.omadac.vote.belenios.model;
+
+import java.util.List;
+
+import org.immutables.value.Value.Immutable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+@Immutable
+@ValueStyle
+@JsonDeserialize(builder = VerificationReport.Builder.class)
+public interface VerificationReportSpec {
+
+    @JsonProperty("num_ballots")
+    int numBallots();
+
+    List<Integer> accepted();
+
+    List<RejectedBallot> rejected();
+}
@@ -0,0 +1,125 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.algo.BallotAdmission.Stage;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.RejectedBallot;
+
+public class BallotAdmissionTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    private ElectionContext context;
+
+    private List<Ballot> ballots;
+
+    @BeforeEach
+    public void readElection() throws Exception {
+        context = ElectionContext.read(dir.resolve("election.json"));
+        try (var stream = BallotFiles.readBallots(dir.resolve("ballots.jsons"))) {
+            ballots = stream.collect(toList());
+        }
+    }
+
+    @Test
+    public void shouldRejectInCheapestStage() {
+        var unknown = ballots.get(4).signature().publicKey();
+        var admission = new BallotAdmission(context, publicCred -> !publicCred.equals(unknown));
+        var ballot = ballots.get(0);
+        var answer = ballot.answers().get(0);
+        var choice = answer.choices().get(0);
+        long[] before = counts();
+        long proofs = Metrics.INTERVAL_PROOF.count();
+
+        assertThat(admission.screen(ballot.withAnswers(List.of(answer)))).startsWith("expected 2 answers");
+        assertThat(admission.screen(ballot.withAnswers(answer.withOverallProof(List.of()), ballot.answers().get(1))))
+            .startsWith("wrong number of overall");
+        assertThat(admission.screen(ballot.withElectionUuid("other"))).isEqualTo("wrong election uuid");
+        var outOfRange = answer.withChoices(choice.withAlpha(context.p()), answer.choices().get(1));
+        assertThat(admission.screen(ballot.withAnswers(outOfRange, ballot.answers().get(1))))
+            .isEqualTo("ciphertext out of range");
+        var signature = ballot.signature();
+        assertThat(admission.screen(ballot.withSignature(signature.withResponse(context.q()))))
+            .isEqualTo("signature out of range");
+        assertThat(admission.screen(ballots.get(4))).isEqualTo("unknown credential");
+        var outOfGroup = ballot.withAnswers(answer.withChoices(choice.withAlpha(context.p().subtract(BigInteger.ONE)),
+            answer.choices().get(1)), ballot.answers().get(1));
+        assertThat(admission.screen(outOfGroup)).isNull();
+        assertThat(admission.verify(outOfGroup, 0)).isEqualTo("ciphertext not in subgroup");
+        assertThat(Metrics.INTERVAL_PROOF.count()).isEqualTo(proofs);
+
+        assertThat(admission.screen(ballot)).isNull();
+        assertThat(admission.screen(ballot)).isEqualTo("duplicate ballot");
+        assertThat(admission.verify(ballot, 0)).isNull();
+
+        var forged = ballots.get(1).withSignature(ballots.get(1).signature()
+            .withResponse(ballots.get(1).signature().response().add(BigInteger.ONE).mod(context.q())));
+        assertThat(admission.admit(forged, 1)).isEqualTo("invalid proof or signature");
+        assertThat(admission.admit(ballots.get(1), 1)).isNull();
+
+        long[] after = counts();
+        assertThat(after[Stage.STRUCTURE.ordinal()] - before[Stage.STRUCTURE.ordinal()]).isEqualTo(2);
+        assertThat(after[Stage.ELECTION.ordinal()] - before[Stage.ELECTION.ordinal()]).isEqualTo(1);
+        assertThat(after[Stage.RANGE.ordinal()] - before[Stage.RANGE.ordinal()]).isEqualTo(2);
+        assertThat(after[Stage.CREDENTIAL.ordinal()] - before[Stage.CREDENTIAL.ordinal()]).isEqualTo(1);
+        assertThat(after[Stage.DUPLICATE.ordinal()] - before[Stage.DUPLICATE.ordinal()]).isEqualTo(1);
+        assertThat(after[Stage.SUBGROUP.ordinal()] - before[Stage.SUBGROUP.ordinal()]).isEqualTo(1);
+        assertThat(after[Stage.PROOFS.ordinal()] - before[Stage.PROOFS.ordinal()]).isEqualTo(1);
+        assertThat(Metrics.prometheus()).contains("belenios_admission_rejected_total{stage=\"duplicate\"} ");
+    }
+
+    @Test
+    public void shouldRejectReplayedBallotsInParallelVerification() {
+        var replayed = List.of(ballots.get(0), ballots.get(1), ballots.get(0));
+        var report = ParallelVerifyBallot.verify(context, replayed.stream(), publicCred -> true, 2);
+        assertThat(report.accepted()).containsExactly(0, 1);
+        assertThat(report.rejected()).hasSize(1);
+        assertThat(report.rejected().get(0).index()).isEqualTo(2);
+        assertThat(report.rejected().get(0).reason()).isEqualTo("duplicate ballot");
+    }
+
+    @Test
+    public void shouldAcceptValidBallotAfterForgedCopy() {
+        var ballot = ballots.get(0);
+        var signature = ballot.signature();
+        var forged = ballot.withSignature(signature.withResponse(signature.response().add(BigInteger.ONE)
+            .mod(context.q())));
+        var report = ParallelVerifyBallot.verify(context, List.of(forged, ballot, ballot).stream(),
+            publicCred -> true, 2);
+        assertThat(report.accepted()).containsExactly(1);
+        assertThat(report.rejected()).extracting(RejectedBallot::reason)
+            .containsExactly("invalid signature", "duplicate ballot");
+    }
+
+    @Test
+    public void shouldCheckSubgroupInParallelTasks() {
+        var ballot = ballots.get(0);
+        var answer = ballot.answers().get(0);
+        var alpha = answer.choices().get(0).alpha();
+        var outOfGroup = ballot.withAnswers(answer.withChoices(answer.choices().get(0)
+            .withAlpha(context.p().subtract(alpha)), answer.choices().get(1)), ballot.answers().get(1));
+        var report = ParallelVerifyBallot.verify(context, List.of(outOfGroup, ballot).stream(),
+            publicCred -> true, 2);
+        assertThat(report.accepted()).containsExactly(1);
+        assertThat(report.rejected()).extracting(RejectedBallot::reason)
+            .containsExactly("ciphertext not in subgroup");
+    }
+
+    private static long[] counts() {
+        var stages = Stage.values();
+        long[] counts = new long[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            counts[i] = stages[i].rejected().count();
+        }
+        return counts;
+    }
+}
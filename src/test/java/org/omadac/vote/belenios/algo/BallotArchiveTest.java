@@ -0,0 +1,84 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Election;
+
+public class BallotArchiveTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @TempDir
+    Path tempDir;
+
+    private List<Ballot> ballots;
+
+    private Path binaryFile;
+
+    @BeforeEach
+    public void convertBallots() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        try (var lines = Files.lines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8)) {
+            ballots = lines.map(json -> JsonMapper.fromJson(json, Ballot.class)).collect(Collectors.toList());
+        }
+        binaryFile = tempDir.resolve("ballots.bin");
+        BallotFiles.toBinary(election, dir.resolve("ballots.jsons"), binaryFile);
+    }
+
+    @Test
+    public void shouldLookUpBallotsByOrdinalAndCredential() throws Exception {
+        // tiny segments, so that records cross segment boundaries
+        for (int segmentSize: new int[] {1 << 30, 1000}) {
+            try (var archive = BallotArchive.open(binaryFile, segmentSize)) {
+                assertThat(archive.numBallots()).isEqualTo(ballots.size());
+                for (int i = 0; i < ballots.size(); i++) {
+                    var publicCred = ballots.get(i).signature().publicKey();
+                    assertThat(archive.ballot(i)).isEqualTo(ballots.get(i));
+                    assertThat(archive.publicCredential(i)).isEqualTo(publicCred);
+                    assertThat(archive.ordinals(publicCred)).containsExactly(i);
+                }
+                assertThat(archive.ordinals(BigInteger.TWO)).isEmpty();
+                assertThatThrownBy(() -> archive.record(ballots.size()))
+                    .isInstanceOf(IndexOutOfBoundsException.class);
+            }
+        }
+        assertThat(BallotArchive.indexFile(binaryFile)).exists();
+    }
+
+    @Test
+    public void shouldRebuildIndexAfterAppend() throws Exception {
+        int headerLength;
+        try (var archive = BallotArchive.open(binaryFile)) {
+            assertThat(archive.numBallots()).isEqualTo(ballots.size());
+            headerLength = archive.header().length();
+        }
+
+        // append a revote: a copy of the first record
+        var bytes = ByteBuffer.wrap(Files.readAllBytes(binaryFile));
+        int recordLength = Integer.BYTES + bytes.getInt(headerLength);
+        Files.write(binaryFile, Arrays.copyOfRange(bytes.array(), headerLength, headerLength + recordLength),
+            StandardOpenOption.APPEND);
+
+        try (var archive = BallotArchive.open(binaryFile)) {
+            assertThat(archive.numBallots()).isEqualTo(ballots.size() + 1);
+            assertThat(archive.ballot(ballots.size())).isEqualTo(ballots.get(0));
+            assertThat(archive.ordinals(ballots.get(0).signature().publicKey())).containsExactly(0, ballots.size());
+        }
+    }
+}
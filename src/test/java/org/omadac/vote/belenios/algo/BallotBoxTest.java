@@ -0,0 +1,125 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.BallotReceipt;
+import org.omadac.vote.belenios.model.Credentials;
+import org.omadac.vote.belenios.model.Election;
+
+public class BallotBoxTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @TempDir
+    Path tempDir;
+
+    private Election election;
+
+    private String electionHash;
+
+    private CredentialRegistry credentials;
+
+    private List<String> lines;
+
+    @BeforeEach
+    public void readElection() throws Exception {
+        election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        credentials = CredentialRegistry.read(dir.resolve("public_creds.txt"));
+        lines = Files.readAllLines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8);
+        electionHash = JsonMapper.fromJson(lines.get(0), Ballot.class).electionHash();
+    }
+
+    @Test
+    public void shouldStoreVerifiedBallots() throws Exception {
+        var ballotsFile = tempDir.resolve("ballots.jsons");
+        List<CompletableFuture<BallotReceipt>> futures = new ArrayList<>();
+        List<BallotReceipt> receipts = new ArrayList<>();
+        try (var box = new BallotBox(election, electionHash, credentials::contains, ballotsFile, 2, 16)) {
+            for (var line: lines) {
+                futures.add(box.submit(line));
+            }
+            for (var future: futures) {
+                receipts.add(future.get());
+            }
+        }
+        assertThat(receipts).extracting(BallotReceipt::revote).containsOnly(false);
+        assertThat(receipts).extracting(BallotReceipt::ordinal).containsExactlyInAnyOrder(0, 1, 2, 3, 4);
+        var stored = Files.readAllLines(ballotsFile, StandardCharsets.UTF_8);
+        assertThat(stored).containsExactlyInAnyOrderElementsOf(lines);
+        for (var receipt: receipts) {
+            var line = stored.get(receipt.ordinal());
+            var tracker = Base64.getEncoder().withoutPadding()
+                .encodeToString(ModularChecksum.sha256().digest(line.getBytes(StandardCharsets.UTF_8)));
+            assertThat(receipt.tracker()).isEqualTo(tracker);
+        }
+
+        // reopen after a crash in the middle of a line
+        Files.writeString(ballotsFile, lines.get(0).substring(0, 100), StandardOpenOption.APPEND);
+        var revote = JsonMapper.INSTANCE.writeValueAsString(createRevote(lines.get(2)));
+        try (var box = new BallotBox(election, electionHash, credentials::contains, ballotsFile, 1, 1)) {
+            assertThat(box.numBallots()).isEqualTo(5);
+            assertRejected(box.submit(lines.get(2)), "duplicate ballot");
+            var receipt = box.submit(revote).get();
+            assertThat(receipt.ordinal()).isEqualTo(5);
+            assertThat(receipt.revote()).isTrue();
+        }
+        assertThat(Files.readAllLines(ballotsFile, StandardCharsets.UTF_8)).hasSize(6).endsWith(revote);
+    }
+
+    private Ballot createRevote(String line) throws Exception {
+        var publicCred = JsonMapper.fromJson(line, Ballot.class).signature().publicKey();
+        var group = election.publicKey().group();
+        for (var entry: Files.readAllLines(dir.resolve("private_creds.txt"), StandardCharsets.UTF_8)) {
+            var privateCred = entry.substring(entry.lastIndexOf(' ') + 1);
+            if (GenCredentials.derive(privateCred, election.uuid(), group).equals(publicCred)) {
+                var credentials = Credentials.builder().privateCred(privateCred).publicCred(publicCred).build();
+                return CreateBallot.createBallot(ElectionContext.of(election, electionHash), credentials,
+                    List.of(List.of(0, 1), List.of(1, 0, 0)));
+            }
+        }
+        throw new IllegalStateException("no private credential for " + publicCred);
+    }
+
+    @Test
+    public void shouldRejectInvalidBallots() throws Exception {
+        var ballotsFile = tempDir.resolve("ballots.jsons");
+        try (var box = new BallotBox(election, electionHash, credentials::contains, ballotsFile, 1, 16)) {
+            var tampered = lines.get(0).replaceFirst("\"alpha\":\"1", "\"alpha\":\"");
+            assertRejected(box.submit(tampered), "ciphertext not in subgroup");
+            var otherCred = JsonMapper.fromJson(lines.get(1), Ballot.class).signature().publicKey().toString();
+            var ownCred = JsonMapper.fromJson(lines.get(0), Ballot.class).signature().publicKey().toString();
+            assertRejected(box.submit(lines.get(0).replace(ownCred, otherCred)), "invalid proof or signature");
+            assertRejected(box.submit(lines.get(0).replace(electionHash, "x")), "wrong election hash");
+            assertRejected(box.submit("{\"answers\":[}"), "malformed ballot");
+            assertRejected(box.submit("{\"answers\":[]}"), "missing election uuid");
+            assertRejected(box.submit(lines.get(0) + "\n" + lines.get(1)), "single line");
+            assertRejected(box.submit(lines.get(1).replaceFirst("\"alpha\":\"", "\"alpha\":\"-")), "out of range");
+        }
+        try (var box = new BallotBox(election, electionHash, publicCred -> false, ballotsFile, 1, 16)) {
+            assertRejected(box.submit(lines.get(0)), "unknown credential");
+        }
+        assertThat(Files.size(ballotsFile)).isZero();
+    }
+
+    private static void assertRejected(CompletableFuture<BallotReceipt> receipt, String reason) {
+        assertThatThrownBy(receipt::get).isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(reason);
+    }
+}
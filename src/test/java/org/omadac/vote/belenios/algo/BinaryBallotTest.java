@@ -0,0 +1,102 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Election;
+
+public class BinaryBallotTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @TempDir
+    Path tempDir;
+
+    private List<Ballot> jsonBallots() throws Exception {
+        try (var lines = Files.lines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8)) {
+            return lines.map(json -> JsonMapper.fromJson(json, Ballot.class)).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void shouldConvertBallotsBothWays() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var binaryFile = tempDir.resolve("ballots.bin");
+        var jsonFile = tempDir.resolve("ballots.jsons");
+
+        assertThat(BallotFiles.toBinary(election, dir.resolve("ballots.jsons"), binaryFile)).isEqualTo(5);
+        assertThat(BallotFiles.isBinary(binaryFile)).isTrue();
+        assertThat(BallotFiles.isBinary(dir.resolve("ballots.jsons"))).isFalse();
+        assertThat(Files.size(binaryFile)).isLessThan(Files.size(dir.resolve("ballots.jsons")) / 2);
+
+        try (var ballots = BallotFiles.readBallots(binaryFile)) {
+            assertThat(ballots.collect(Collectors.toList())).isEqualTo(jsonBallots());
+        }
+
+        assertThat(BallotFiles.toJson(binaryFile, jsonFile)).isEqualTo(5);
+        try (var ballots = BallotFiles.readBallots(jsonFile)) {
+            assertThat(ballots.collect(Collectors.toList())).isEqualTo(jsonBallots());
+        }
+    }
+
+    @Test
+    public void shouldTallyBinaryBallots() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var binaryFile = tempDir.resolve("ballots.bin");
+        BallotFiles.toBinary(election, dir.resolve("ballots.jsons"), binaryFile);
+
+        TallyAccumulator expected;
+        try (InputStream in = Files.newInputStream(dir.resolve("ballots.jsons"))) {
+            expected = CreateEncryptedTally.tallyWeighted(election, in, publicCred -> 1);
+        }
+        try (InputStream in = Files.newInputStream(binaryFile)) {
+            var binary = CreateEncryptedTally.tallyWeighted(election, in, publicCred -> 1);
+            assertThat(binary.numBallots()).isEqualTo(expected.numBallots());
+            assertThat(binary.snapshot()).isEqualTo(expected.snapshot());
+        }
+        for (int threads: new int[] {1, 2, 3, 64}) {
+            var parallel = ParallelTally.tallyWeighted(election, binaryFile, publicCred -> 1, threads);
+            assertThat(parallel.numBallots()).isEqualTo(expected.numBallots());
+            assertThat(parallel.snapshot()).isEqualTo(expected.snapshot());
+        }
+    }
+
+    @Test
+    public void shouldRejectBallotOfOtherElection() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var ballot = jsonBallots().get(0);
+        var header = new BinaryBallotHeader(election.publicKey().group(), election.uuid(), "other");
+        try (var writer = new BinaryBallotWriter(new ByteArrayOutputStream(), header)) {
+            assertThatThrownBy(() -> writer.write(ballot)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void shouldRejectNumberTooLarge() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var ballot = jsonBallots().get(0);
+        var signature = ballot.signature().withChallenge(election.publicKey().group().p());
+        var header = new BinaryBallotHeader(election.publicKey().group(), ballot.electionUuid(),
+            ballot.electionHash());
+        try (var writer = new BinaryBallotWriter(new ByteArrayOutputStream(), header)) {
+            assertThatThrownBy(() -> writer.write(ballot.withSignature(signature)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Number does not fit");
+            writer.write(ballot.withSignature(signature.withChallenge(BigInteger.ONE)));
+            assertThat(writer.numBallots()).isEqualTo(1);
+        }
+    }
+}
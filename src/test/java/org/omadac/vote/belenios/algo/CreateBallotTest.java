@@ -18,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.omadac.vote.belenios.model.Ballot;
 import org.omadac.vote.belenios.model.Credentials;
 import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.Question;
 
 public class CreateBallotTest {
 
@@ -62,6 +63,23 @@ public class CreateBallotTest {
         assertThat(verifyBallot(ballot, election)).isTrue();
     }
 
+    @Test
+    public void shouldCreateBallotsFromRandomnessPool() throws Exception {
+        var fixture = readElection();
+        var interval = Question.builder().question("Q1").addAnswers("A", "B", "C").blank(false).min(0).max(2).build();
+        var election = fixture.withQuestions(List.of(fixture.questions().get(0), interval));
+
+        try (var pool = new RandomnessPool(election.publicKey(), 100, 2)) {
+            for (List<List<Integer>> votes: List.of(
+                List.of(List.of(1, 0, 0), List.of(0, 0, 0)),
+                List.of(List.of(0, 0, 1), List.of(1, 1, 0)),
+                List.of(List.of(0, 1, 0), List.of(0, 0, 1)))) {
+                var ballot = createBallot(election, credentials, votes, pool);
+                assertThat(verifyBallot(ballot, election)).isTrue();
+            }
+        }
+    }
+
     @Test
     public void shouldCreateElectionHash() throws Exception {
         var election = readElection();
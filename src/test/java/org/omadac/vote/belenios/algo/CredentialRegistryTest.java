@@ -0,0 +1,55 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+public class CredentialRegistryTest {
+
+    @Test
+    public void shouldReadPublicCredentials() throws Exception {
+        var file = Paths.get("src/test/resources/4BmyrdywTpwJry/public_creds.txt");
+        var registry = CredentialRegistry.read(file);
+        var lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(registry.size()).isEqualTo(lines.size());
+        for (String line: lines) {
+            var publicCred = new BigInteger(line.split(",")[0]);
+            assertThat(registry.contains(publicCred)).isTrue();
+            assertThat(registry.weight(publicCred)).isEqualTo(1);
+        }
+        assertThat(registry.contains(BigInteger.TWO)).isFalse();
+        assertThatThrownBy(() -> registry.weight(BigInteger.TWO))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Unknown credential");
+    }
+
+    @Test
+    public void shouldPackWeights() throws Exception {
+        var text = new StringBuilder();
+        for (int i = 1; i <= 3000; i++) {
+            text.append(BigInteger.valueOf(i).pow(100)).append(',').append(i % 1000 + 1).append('\n');
+        }
+        var registry = CredentialRegistry.read(new BufferedReader(new StringReader(text.toString())));
+        assertThat(registry.size()).isEqualTo(3000);
+        for (int i = 1; i <= 3000; i++) {
+            assertThat(registry.weight(BigInteger.valueOf(i).pow(100))).isEqualTo(i % 1000 + 1);
+        }
+        assertThat(registry.contains(BigInteger.valueOf(3001).pow(100))).isFalse();
+    }
+
+    @Test
+    public void shouldRejectDuplicateCredential() {
+        var text = "12345,2\n67890\n12345\n";
+        assertThatThrownBy(() -> CredentialRegistry.read(new BufferedReader(new StringReader(text))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Duplicate public credential");
+    }
+}
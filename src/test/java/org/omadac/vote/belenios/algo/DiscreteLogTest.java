@@ -0,0 +1,42 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Group;
+
+public class DiscreteLogTest {
+
+    private Group group = Groups.HOMOMORPHIC;
+
+    @Test
+    public void shouldFindAllLogsInRange() {
+        int max = 1000;
+        var discreteLog = new DiscreteLog(group, max);
+        var value = BigInteger.ONE;
+        for (int x = 0; x <= max; x++) {
+            assertThat(discreteLog.log(value)).isEqualTo(x);
+            value = value.multiply(group.g()).mod(group.p());
+        }
+        assertThat(discreteLog.log(value)).isNull();
+    }
+
+    @Test
+    public void shouldHandleSmallRanges() {
+        assertThat(new DiscreteLog(group, 0).log(BigInteger.ONE)).isEqualTo(0);
+        assertThat(new DiscreteLog(group, 0).log(group.g())).isNull();
+        assertThat(new DiscreteLog(group, 1).log(group.g())).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFindLargeLogs() {
+        int max = 50_000_000;
+        var discreteLog = new DiscreteLog(group, max);
+        for (int x: new int[] {max, max - 1, 12_345_678, 7_071}) {
+            assertThat(discreteLog.log(group.g().modPow(BigInteger.valueOf(x), group.p()))).isEqualTo(x);
+        }
+        assertThat(discreteLog.log(group.g().modPow(BigInteger.valueOf(max + 1L), group.p()))).isNull();
+    }
+}
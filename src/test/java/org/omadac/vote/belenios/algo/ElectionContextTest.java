@@ -0,0 +1,91 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.RejectedBallot;
+
+public class ElectionContextTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @Test
+    public void shouldDeriveElectionConstants() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var context = ElectionContext.of(election);
+        var group = election.publicKey().group();
+
+        assertThat(context.qBits()).isEqualTo(group.q().bitLength());
+        assertThat(context.keyPrefix()).isEqualTo(group.g() + "," + election.publicKey().y());
+        assertThat(context.gExp().base()).isEqualTo(group.g());
+        assertThat(context.yExp().base()).isEqualTo(election.publicKey().y());
+        assertThat(context.montgomery().modulus()).isEqualTo(group.p());
+        assertThat(context.numQuestions()).isEqualTo(election.questions().size());
+        assertThat(context.electionHash()).isEqualTo(CreateBallot.createElectionHash(election));
+        assertThat(ElectionContext.of(election, "hash").electionHash()).isEqualTo("hash");
+    }
+
+    @Test
+    public void shouldCreateAndVerifyBallotsWithSharedContext() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var context = ElectionContext.of(election);
+        var credentials = GenCredentials.generate(election.uuid(), election.publicKey().group());
+        var votes = List.of(List.of(1, 0), List.of(0, 1, 0));
+
+        try (var pool = new RandomnessPool(context, 10, 1)) {
+            var ballot = CreateBallot.createBallot(context, credentials, votes, pool);
+            assertThat(ballot.electionHash()).isEqualTo(context.electionHash());
+            assertThat(VerifyBallot.verifyBallot(ballot, context)).isTrue();
+            assertThat(VerifyBallot.verifyBallot(ballot, election)).isTrue();
+
+            var tally = new TallyAccumulator(context);
+            tally.absorb(ballot);
+            assertThat(tally.snapshot()).isEqualTo(CreateEncryptedTally.tally(election, List.of(ballot).stream()));
+        }
+        try (var ballots = BallotFiles.readBallots(dir.resolve("ballots.jsons"))) {
+            assertThat(ParallelVerifyBallot.verify(context, ballots, publicCred -> true, 2).rejected()).isEmpty();
+        }
+    }
+
+    @Test
+    public void shouldMatchPublishedElectionHash() throws Exception {
+        var published = ElectionContext.read(dir.resolve("election.json"));
+        var ballot = firstBallot();
+        assertThat(published.electionHash()).isEqualTo(ballot.electionHash());
+        assertThat(CreateBallot.createElectionHash(published.election())).isEqualTo(ballot.electionHash());
+
+        var context = ElectionContext.of(published.election());
+        assertThat(ElectionContext.of(published.election())).isSameAs(context);
+        assertThat(context.electionHash()).isSameAs(context.electionHash());
+    }
+
+    @Test
+    public void shouldRejectBallotsOfOtherElectionsBeforeProofs() throws Exception {
+        var context = ElectionContext.read(dir.resolve("election.json"));
+        var ballot = firstBallot();
+        long proofs = Metrics.INTERVAL_PROOF.count();
+
+        assertThat(VerifyBallot.checkElection(ballot.withElectionUuid("other"), context))
+            .isEqualTo("wrong election uuid");
+        assertThat(VerifyBallot.verifyBallot(ballot.withElectionHash("other"), context)).isFalse();
+        assertThat(Metrics.INTERVAL_PROOF.count()).isEqualTo(proofs);
+
+        var report = ParallelVerifyBallot.verify(context, Stream.of(ballot.withElectionHash("other"), ballot),
+            publicCred -> true, 1);
+        assertThat(report.accepted()).containsExactly(1);
+        assertThat(report.rejected()).extracting(RejectedBallot::reason).containsExactly("wrong election hash");
+    }
+
+    private Ballot firstBallot() throws Exception {
+        try (var ballots = BallotFiles.readBallots(dir.resolve("ballots.jsons"))) {
+            return ballots.findFirst().get();
+        }
+    }
+}
@@ -1,22 +1,29 @@
 package org.omadac.vote.belenios.algo;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.omadac.vote.belenios.algo.CreateBallot.createBallot;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 
 import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Ballot;
 import org.omadac.vote.belenios.model.Ciphertext;
 import org.omadac.vote.belenios.model.Credentials;
 import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.WeightedBallot;
 
 public class EncryptedTallyTest {
 
@@ -36,6 +43,68 @@ public class EncryptedTallyTest {
         assertThat(tally).isEqualTo(cts);
     }
 
+    @Test
+    public void shouldRejectStreamedCiphertextsOutOfRange() throws Exception {
+        var dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var p = election.publicKey().group().p();
+        var line = Files.readAllLines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8).get(0);
+        var alpha = JsonMapper.fromJson(line, Ballot.class).answers().get(0).choices().get(0).alpha();
+
+        for (var tampered: List.of(alpha.add(p), alpha.negate(), p)) {
+            var json = line.replace("\"" + alpha + "\"", "\"" + tampered + "\"");
+            try (InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))) {
+                assertThatThrownBy(() -> CreateEncryptedTally.tallyWeighted(election, in, publicCred -> 1))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("out of range");
+            }
+        }
+    }
+
+    @Test
+    public void shouldTallyStreamedBallots() throws Exception {
+        var dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        List<Ballot> ballots = Files.lines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8)
+            .map(json -> JsonMapper.fromJson(json, Ballot.class))
+            .collect(Collectors.toList());
+
+        TallyAccumulator streamed;
+        try (InputStream in = Files.newInputStream(dir.resolve("ballots.jsons"))) {
+            streamed = CreateEncryptedTally.tallyWeighted(election, in, publicCred -> 1);
+        }
+        assertThat(streamed.numBallots()).isEqualTo(ballots.size());
+        assertThat(streamed.totalWeight()).isEqualTo(ballots.size());
+        assertThat(streamed.snapshot()).isEqualTo(CreateEncryptedTally.tally(election, ballots.stream()));
+    }
+
+    @Test
+    public void shouldMatchPairwiseProduct() throws Exception {
+        var dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var p = election.publicKey().group().p();
+        List<Ballot> ballots = Files.lines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8)
+            .map(json -> JsonMapper.fromJson(json, Ballot.class))
+            .collect(Collectors.toList());
+
+        List<WeightedBallot> weighted = ballots.stream()
+            .map(b -> WeightedBallot.builder().ballot(b).weight(3).build())
+            .collect(Collectors.toList());
+        var expected = weighted.stream()
+            .map(b -> CreateEncryptedTally.extractCiphertexts(b, p))
+            .reduce(CreateEncryptedTally.neutral(election), (l, r) -> CreateEncryptedTally.combine(l, r, p));
+        assertThat(CreateEncryptedTally.tallyWeighted(election, weighted.parallelStream())).isEqualTo(expected);
+
+        var left = new TallyAccumulator(election);
+        var right = new TallyAccumulator(election);
+        for (int i = 0; i < ballots.size(); i++) {
+            (i % 2 == 0 ? left : right).absorb(ballots.get(i));
+        }
+        assertThat(left.merge(right).snapshot()).isEqualTo(CreateEncryptedTally.tally(election, ballots.stream()));
+        assertThat(left.numBallots()).isEqualTo(ballots.size());
+        assertThat(new TallyAccumulator(election).snapshot()).isEqualTo(CreateEncryptedTally.neutral(election));
+    }
+
     private Election readElection() throws IOException, JsonProcessingException, JsonMappingException {
         var json = Files.readString(Paths.get("src/test/resources/election01/election.json"));
         var election = JsonMapper.INSTANCE.readValue(json, Election.class);
@@ -0,0 +1,51 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Group;
+
+public class FixedBaseExpTest {
+
+    private Group group = Groups.HOMOMORPHIC;
+
+    @Test
+    public void shouldMatchModPow() {
+        var gExp = FixedBaseExp.generator(group);
+        for (int i = 0; i < 20; i++) {
+            var exponent = GenRandomInteger.run(group.q());
+            assertThat(gExp.pow(exponent)).isEqualTo(group.g().modPow(exponent, group.p()));
+        }
+    }
+
+    @Test
+    public void shouldHandleEdgeCases() {
+        var gExp = FixedBaseExp.generator(group);
+        assertThat(gExp.pow(BigInteger.ZERO)).isEqualTo(BigInteger.ONE);
+        assertThat(gExp.pow(BigInteger.ONE)).isEqualTo(group.g());
+        assertThat(gExp.pow(group.q())).isEqualTo(BigInteger.ONE);
+
+        var large = group.p().subtract(BigInteger.TWO);
+        assertThat(gExp.pow(large)).isEqualTo(group.g().modPow(large, group.p()));
+
+        var negative = BigInteger.valueOf(-3);
+        assertThat(gExp.pow(negative)).isEqualTo(group.g().modPow(negative, group.p()));
+    }
+
+    @Test
+    public void shouldCacheTables() {
+        assertThat(FixedBaseExp.generator(group)).isSameAs(FixedBaseExp.generator(group));
+    }
+
+    @Test
+    public void shouldMultiplyInMontgomeryForm() {
+        var montgomery = new Montgomery(group.p());
+        var x = GenRandomInteger.run(group.p());
+        var y = GenRandomInteger.run(group.p());
+        var product = montgomery.fromMontgomery(
+            montgomery.multiply(montgomery.toMontgomery(x), montgomery.toMontgomery(y)));
+        assertThat(product).isEqualTo(x.multiply(y).mod(group.p()));
+    }
+}
@@ -0,0 +1,53 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.omadac.vote.belenios.model.Election;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderEventTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldRecordBallotAndProofEvents() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var jfrFile = tempDir.resolve("verify.jfr");
+        try (var recording = new Recording()) {
+            recording.enable("belenios.Ballot");
+            recording.enable("belenios.Proof");
+            recording.start();
+            try (var ballots = BallotFiles.readBallots(dir.resolve("ballots.jsons"))) {
+                assertThat(ParallelVerifyBallot.verify(election, ballots, 2).rejected()).isEmpty();
+            }
+            recording.stop();
+            recording.dump(jfrFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfrFile);
+        var ballotEvents = events.stream().filter(e -> e.getEventType().getName().equals("belenios.Ballot"))
+            .collect(toList());
+        assertThat(ballotEvents).extracting(e -> e.getInt("ballot")).containsExactlyInAnyOrder(0, 1, 2, 3, 4);
+        assertThat(ballotEvents).allMatch(e -> e.getBoolean("valid") && e.getString("operation").equals("verify"));
+
+        var proofEvents = events.stream().filter(e -> e.getEventType().getName().equals("belenios.Proof"))
+            .collect(toList());
+        assertThat(proofEvents).extracting(e -> e.getString("kind")).contains("interval", "signature");
+        assertThat(proofEvents).filteredOn(e -> e.getString("kind").equals("signature")).hasSize(5);
+        assertThat(proofEvents).filteredOn(e -> e.getString("kind").equals("interval"))
+            .allMatch(e -> e.getInt("question") >= 0 && e.getInt("choice") >= 0);
+    }
+}
@@ -0,0 +1,145 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Credentials;
+import org.omadac.vote.belenios.model.Election;
+
+public class IncrementalTallyTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @TempDir
+    Path tempDir;
+
+    private Election election;
+
+    private TallyAccumulator expected;
+
+    @BeforeEach
+    public void tallyAllBallots() throws Exception {
+        election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        try (InputStream in = Files.newInputStream(dir.resolve("ballots.jsons"))) {
+            expected = CreateEncryptedTally.tallyWeighted(election, in, publicCred -> 1);
+        }
+    }
+
+    @Test
+    public void shouldAbsorbAppendedBallots() throws Exception {
+        List<String> lines = Files.readAllLines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8);
+        var ballotsFile = tempDir.resolve("ballots.jsons");
+        var checkpointFile = tempDir.resolve("checkpoint.json");
+        var tally = new IncrementalTally(election, ballotsFile, checkpointFile, publicCred -> 1, 2);
+
+        // three complete ballots and one which is still being written
+        Files.write(ballotsFile, lines.subList(0, 3), StandardCharsets.UTF_8);
+        var line = lines.get(3);
+        Files.writeString(ballotsFile, line.substring(0, 100), StandardOpenOption.APPEND);
+        var checkpoint = tally.update();
+        assertThat(checkpoint.numBallots()).isEqualTo(3);
+        assertThat(tally.checkpoint()).isEqualTo(checkpoint);
+        assertThat(tally.verify()).isTrue();
+
+        Files.writeString(ballotsFile, line.substring(100) + "\n" + lines.get(4) + "\n", StandardOpenOption.APPEND);
+        checkpoint = tally.update();
+        assertThat(checkpoint.numBallots()).isEqualTo(5);
+        assertThat(checkpoint.totalWeight()).isEqualTo(5);
+        assertThat(checkpoint.offset()).isEqualTo(Files.size(ballotsFile));
+        assertThat(checkpoint.encryptedTally()).isEqualTo(expected.snapshot());
+        assertThat(tally.verify()).isTrue();
+        assertThat(tally.update()).isEqualTo(checkpoint);
+
+        // the hash chain does not depend on the checkpoint interval
+        var otherCheckpointFile = tempDir.resolve("other.json");
+        var other = new IncrementalTally(election, ballotsFile, otherCheckpointFile, publicCred -> 1).update();
+        assertThat(other).isEqualTo(checkpoint);
+
+        var bytes = Files.readAllBytes(ballotsFile);
+        bytes[bytes.length / 2] = (byte) (bytes[bytes.length / 2] == '1' ? '2' : '1');
+        Files.write(ballotsFile, bytes);
+        assertThat(tally.verify()).isFalse();
+    }
+
+    @Test
+    public void shouldTallyBinaryBallots() throws Exception {
+        var ballotsFile = tempDir.resolve("ballots.bin");
+        BallotFiles.toBinary(election, dir.resolve("ballots.jsons"), ballotsFile);
+        var tally = new IncrementalTally(election, ballotsFile, tempDir.resolve("checkpoint.json"), c -> 1, 3);
+        var checkpoint = tally.update();
+        assertThat(checkpoint.numBallots()).isEqualTo(5);
+        assertThat(checkpoint.offset()).isEqualTo(Files.size(ballotsFile));
+        assertThat(checkpoint.encryptedTally()).isEqualTo(expected.snapshot());
+        assertThat(tally.verify()).isTrue();
+    }
+
+    @Test
+    public void shouldCountOnlyNewestBallotOfEachCredential() throws Exception {
+        List<String> lines = Files.readAllLines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8);
+        var ballotsFile = tempDir.resolve("ballots.jsons");
+        var tally = new IncrementalTally(election, ballotsFile, tempDir.resolve("checkpoint.json"), c -> 1, 2);
+
+        Files.write(ballotsFile, lines, StandardCharsets.UTF_8);
+        tally.update();
+        var revote = JsonMapper.INSTANCE.writeValueAsString(createRevote(lines.get(1)));
+        Files.writeString(ballotsFile, revote + "\n", StandardOpenOption.APPEND);
+        var checkpoint = tally.update();
+
+        TallyAccumulator latest;
+        try (InputStream in = Files.newInputStream(ballotsFile)) {
+            latest = CreateEncryptedTally.tallyLatest(election, in, c -> 1, RevoteIndex.build(ballotsFile));
+        }
+        assertThat(checkpoint.numBallots()).isEqualTo(6);
+        assertThat(checkpoint.numSuperseded()).isEqualTo(1);
+        assertThat(checkpoint.totalWeight()).isEqualTo(5);
+        assertThat(checkpoint.encryptedTally()).isEqualTo(latest.snapshot());
+        assertThat(tally.verify()).isTrue();
+    }
+
+    @Test
+    public void shouldSkipUnknownCredentials() throws Exception {
+        List<String> lines = Files.readAllLines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8);
+        var unknown = JsonMapper.fromJson(lines.get(2), Ballot.class).signature().publicKey();
+        var ballotsFile = tempDir.resolve("ballots.jsons");
+        var tally = new IncrementalTally(election, ballotsFile, tempDir.resolve("checkpoint.json"),
+            publicCred -> publicCred.equals(unknown) ? null : 1, 2);
+
+        Files.write(ballotsFile, lines.subList(0, 3), StandardCharsets.UTF_8);
+        var checkpoint = tally.update();
+        assertThat(checkpoint.numBallots()).isEqualTo(3);
+        assertThat(checkpoint.numUnknown()).isEqualTo(1);
+
+        Files.write(ballotsFile, lines.subList(3, 5), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        checkpoint = tally.update();
+        assertThat(checkpoint.numBallots()).isEqualTo(5);
+        assertThat(checkpoint.numUnknown()).isEqualTo(1);
+        assertThat(checkpoint.totalWeight()).isEqualTo(4);
+        assertThat(checkpoint.offset()).isEqualTo(Files.size(ballotsFile));
+    }
+
+    private Ballot createRevote(String line) throws Exception {
+        var publicCred = JsonMapper.fromJson(line, Ballot.class).signature().publicKey();
+        var group = election.publicKey().group();
+        for (var entry: Files.readAllLines(dir.resolve("private_creds.txt"), StandardCharsets.UTF_8)) {
+            var privateCred = entry.substring(entry.lastIndexOf(' ') + 1);
+            if (GenCredentials.derive(privateCred, election.uuid(), group).equals(publicCred)) {
+                var credentials = Credentials.builder().privateCred(privateCred).publicCred(publicCred).build();
+                var electionHash = JsonMapper.fromJson(line, Ballot.class).electionHash();
+                return CreateBallot.createBallot(ElectionContext.of(election, electionHash), credentials,
+                    List.of(List.of(0, 1), List.of(1, 0, 0)));
+            }
+        }
+        throw new IllegalStateException("no private credential for " + publicCred);
+    }
+}
@@ -0,0 +1,62 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Election;
+
+public class MetricsTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @Test
+    public void shouldKeepPowerOfTwoBuckets() {
+        assertThat(Metrics.Timer.bucket(0)).isEqualTo(0);
+        assertThat(Metrics.Timer.bucket(1)).isEqualTo(1);
+        assertThat(Metrics.Timer.bucket(1023)).isEqualTo(10);
+        assertThat(Metrics.Timer.bucket(1024)).isEqualTo(11);
+
+        var timer = new Metrics.Timer("test_seconds", "", "test");
+        for (int i = 0; i < 99; i++) {
+            timer.recordNanos(1000);
+        }
+        timer.recordNanos(1_000_000);
+        assertThat(timer.count()).isEqualTo(100);
+        assertThat(timer.totalNanos()).isEqualTo(99_000 + 1_000_000);
+        assertThat(timer.maxNanos()).isEqualTo(1_000_000);
+        assertThat(timer.quantileNanos(0.5)).isEqualTo(1023);
+        assertThat(timer.quantileNanos(0.99)).isEqualTo(1023);
+        assertThat(timer.quantileNanos(1.0)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    public void shouldCountVerifiedBallots() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        long verified = Metrics.BALLOTS_VERIFIED.count();
+        long signatures = Metrics.SIGNATURE.count();
+        long intervals = Metrics.INTERVAL_PROOF.count();
+        long overalls = Metrics.OVERALL_PROOF.count();
+        long parsed = Metrics.BYTES_PARSED.count();
+        try (var ballots = BallotFiles.readBallots(dir.resolve("ballots.jsons"))) {
+            assertThat(ParallelVerifyBallot.verify(election, ballots, 2).rejected()).isEmpty();
+        }
+        assertThat(Metrics.BALLOTS_VERIFIED.count() - verified).isEqualTo(5);
+        assertThat(Metrics.SIGNATURE.count() - signatures).isEqualTo(5);
+        // one individual proof per choice, one overall proof per question
+        assertThat(Metrics.INTERVAL_PROOF.count() - intervals).isEqualTo(5 * 5);
+        assertThat(Metrics.OVERALL_PROOF.count() - overalls).isEqualTo(5 * 2);
+        assertThat(Metrics.BYTES_PARSED.count() - parsed).isEqualTo(dir.resolve("ballots.jsons").toFile().length());
+
+        var text = Metrics.prometheus();
+        assertThat(text).contains("# TYPE belenios_ballots_verified_total counter\n",
+            "# TYPE belenios_proof_verification_seconds histogram\n",
+            "belenios_proof_verification_seconds_bucket{proof=\"signature\",le=\"+Inf\"} " + Metrics.SIGNATURE.count()
+                + "\n",
+            "belenios_proof_verification_seconds_count{proof=\"signature\"} " + Metrics.SIGNATURE.count() + "\n");
+        assertThat(text.split("# TYPE belenios_proof_verification_seconds ", -1)).hasSize(2);
+        assertThat(Metrics.summary()).contains("belenios_ballots_verified_total");
+    }
+}
@@ -0,0 +1,87 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Group;
+
+public class MultiExpTest {
+
+    private Group group = Groups.HOMOMORPHIC;
+
+    @Test
+    public void shouldMatchNaiveProductWithInverse() {
+        var p = group.p();
+        var gExp = FixedBaseExp.generator(group);
+        var alpha = group.g().modPow(GenRandomInteger.run(group.q()), p);
+        var response = GenRandomInteger.run(group.q());
+        var challenge = GenRandomInteger.run(group.q());
+
+        var expected = group.g().modPow(response, p)
+            .multiply(alpha.modPow(challenge, p).modInverse(p))
+            .mod(p);
+        var actual = MultiExp.pow(gExp, response, alpha, challenge.negate(), group);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldCombineSeveralBases() {
+        var p = group.p();
+        var gExp = FixedBaseExp.generator(group);
+        var y = group.g().modPow(GenRandomInteger.run(group.q()), p);
+        var yExp = FixedBaseExp.of(y, group);
+        var beta = group.g().modPow(GenRandomInteger.run(group.q()), p);
+        var response = GenRandomInteger.run(group.q());
+        var challenge = GenRandomInteger.run(group.q());
+
+        var expected = y.modPow(response, p)
+            .multiply(beta.multiply(group.g().modInverse(p)).modPow(challenge, p).modInverse(p))
+            .mod(p);
+        var actual = MultiExp.of(group)
+            .fixed(yExp, response)
+            .fixed(gExp, challenge)
+            .variable(beta, challenge.negate())
+            .result();
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldReduceExponentsOfCheckedMembers() {
+        var p = group.p();
+        var gExp = FixedBaseExp.generator(group);
+        var alpha = group.g().modPow(GenRandomInteger.run(group.q()), p);
+        var response = GenRandomInteger.run(group.q());
+        var challenge = GenRandomInteger.run(group.q());
+
+        var expected = MultiExp.pow(gExp, response, alpha, challenge.negate(), group);
+        assertThat(MultiExp.pow(gExp, response, alpha, challenge.negate(), group, true)).isEqualTo(expected);
+        assertThat(MultiExp.ofMembers(group).fixed(gExp, response).variable(alpha, challenge.negate()).result())
+            .isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldNotReduceExponentsOfBasesOutsideSubgroup() {
+        var p = group.p();
+        var alpha = p.subtract(BigInteger.ONE).multiply(group.g().modPow(GenRandomInteger.run(group.q()), p)).mod(p);
+        var response = GenRandomInteger.run(p);
+        var challenge = GenRandomInteger.run(group.q());
+
+        var expected = alpha.modPow(response, p)
+            .multiply(alpha.modPow(challenge, p).modInverse(p))
+            .mod(p);
+        var actual = MultiExp.of(group)
+            .variable(alpha, response)
+            .variable(alpha, challenge.negate())
+            .result();
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldReturnOneForEmptyProduct() {
+        assertThat(MultiExp.of(group).result()).isEqualTo(BigInteger.ONE);
+        assertThat(MultiExp.of(group).fixed(FixedBaseExp.generator(group), BigInteger.ZERO).result())
+            .isEqualTo(BigInteger.ONE);
+    }
+}
@@ -0,0 +1,38 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Credentials;
+import org.omadac.vote.belenios.model.Group;
+
+public class ParallelCredentialsTest {
+
+    private Group group = Groups.HOMOMORPHIC;
+
+    @Test
+    public void shouldGenerateInInputOrder() throws Exception {
+        String uuid = UUID.randomUUID().toString();
+        List<String> ids = IntStream.range(0, 300).mapToObj(i -> "voter" + i).collect(Collectors.toList());
+        List<String> emittedIds = new ArrayList<>();
+        List<Credentials> credentials = new ArrayList<>();
+
+        ParallelCredentials.generate(uuid, group, ids.iterator(), 3, (id, creds) -> {
+            emittedIds.add(id);
+            credentials.add(creds);
+        });
+
+        assertThat(emittedIds).isEqualTo(ids);
+        assertThat(credentials.stream().map(Credentials::privateCred).distinct()).hasSize(ids.size());
+        for (Credentials creds: credentials.subList(0, 5)) {
+            assertThat(GenCredentials.isValid(creds.privateCred())).isTrue();
+            assertThat(GenCredentials.derive(creds.privateCred(), uuid, group)).isEqualTo(creds.publicCred());
+        }
+    }
+}
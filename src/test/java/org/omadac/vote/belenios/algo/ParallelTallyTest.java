@@ -0,0 +1,59 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Election;
+
+public class ParallelTallyTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @Test
+    public void shouldMatchSequentialTally() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var ballotsFile = dir.resolve("ballots.jsons");
+
+        TallyAccumulator sequential;
+        try (InputStream in = Files.newInputStream(ballotsFile)) {
+            sequential = CreateEncryptedTally.tallyWeighted(election, in, publicCred -> 2);
+        }
+        for (int threads: new int[] {1, 2, 3, 64}) {
+            var parallel = ParallelTally.tallyWeighted(election, ballotsFile, publicCred -> 2, threads);
+            assertThat(parallel.numBallots()).isEqualTo(sequential.numBallots());
+            assertThat(parallel.totalWeight()).isEqualTo(sequential.totalWeight());
+            assertThat(parallel.snapshot()).isEqualTo(sequential.snapshot());
+        }
+    }
+
+    @Test
+    public void shouldSplitAtLineBoundaries() throws Exception {
+        var ballotsFile = dir.resolve("ballots.jsons");
+        var bytes = Files.readAllBytes(ballotsFile);
+        try (var channel = FileChannel.open(ballotsFile, StandardOpenOption.READ)) {
+            var boundaries = ParallelTally.partition(channel, 8);
+            assertThat(boundaries.get(0)).isEqualTo(0L);
+            assertThat(boundaries.get(boundaries.size() - 1)).isEqualTo((long) bytes.length);
+            assertThat(boundaries).isSorted().doesNotHaveDuplicates();
+            for (int i = 1; i + 1 < boundaries.size(); i++) {
+                assertThat(bytes[(int) (boundaries.get(i) - 1)]).isEqualTo((byte) '\n');
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectUnknownCredential() {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        assertThatThrownBy(() -> ParallelTally.tallyWeighted(election, dir.resolve("ballots.jsons"), c -> null, 2))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Unknown credential");
+    }
+}
@@ -0,0 +1,69 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.RejectedBallot;
+
+public class ParallelVerifyBallotTest {
+
+    private static final String DIR = "src/test/resources/4BmyrdywTpwJry";
+
+    @Test
+    public void shouldAcceptValidBallots() throws Exception {
+        var election = readElection();
+        var ballots = readBallots();
+        var report = ParallelVerifyBallot.verify(election, ballots.stream(), 4);
+        assertThat(report.numBallots()).isEqualTo(ballots.size());
+        assertThat(report.accepted()).containsExactly(0, 1, 2, 3, 4);
+        assertThat(report.rejected()).isEmpty();
+    }
+
+    @Test
+    public void shouldReportRejectedBallots() throws Exception {
+        var election = readElection();
+        List<Ballot> ballots = new ArrayList<>(readBallots());
+        var ballot = ballots.get(2);
+        var signature = ballot.signature();
+        ballots.set(2, ballot.withSignature(signature.withChallenge(signature.challenge().add(BigInteger.ONE))));
+        ballots.set(4, ballots.get(4).withAnswers(List.of()));
+
+        var report = ParallelVerifyBallot.verify(election, ballots.stream(), 2);
+        assertThat(report.accepted()).containsExactly(0, 1, 3);
+        assertThat(report.rejected()).extracting(RejectedBallot::index).containsExactly(2, 4);
+        assertThat(report.rejected().get(0).reason()).isEqualTo("invalid signature");
+    }
+
+    @Test
+    public void shouldRejectUnknownCredentials() throws Exception {
+        var election = readElection();
+        var ballots = readBallots();
+        var unknown = ballots.get(1).signature().publicKey();
+        var report = ParallelVerifyBallot.verify(election, ballots.stream(), c -> !c.equals(unknown), 2);
+        assertThat(report.accepted()).containsExactly(0, 2, 3, 4);
+        assertThat(report.rejected()).containsExactly(
+            RejectedBallot.builder().index(1).reason("unknown credential").build());
+    }
+
+    private Election readElection() throws IOException {
+        var json = Files.readString(Paths.get(DIR, "election.json"));
+        return JsonMapper.INSTANCE.readValue(json, Election.class);
+    }
+
+    private List<Ballot> readBallots() throws IOException {
+        return Files.lines(Paths.get(DIR, "ballots.jsons"), StandardCharsets.UTF_8)
+            .map(json -> JsonMapper.fromJson(json, Ballot.class))
+            .collect(toList());
+    }
+}
@@ -0,0 +1,65 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Ciphertext;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.WrappedPublicKey;
+
+public class PartialDecryptionEngineTest {
+
+    @Test
+    public void shouldDecryptInParallel() throws Exception {
+        var dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+        var fixture = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var group = fixture.publicKey().group();
+        var keyPair = GenTrusteeKey.genKeyPair(group);
+        var election = fixture.withPublicKey(WrappedPublicKey.builder()
+            .group(group)
+            .y(keyPair.trusteePublicKey().publicKey())
+            .build());
+
+        Stream<Ballot> ballots = Files.lines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8)
+            .map(json -> JsonMapper.fromJson(json, Ballot.class));
+        var tally = CreateEncryptedTally.tally(fixture, ballots);
+
+        var sequential = CreatePartialDecryption.decrypt(election, keyPair, tally);
+        var parallel = CreatePartialDecryption.decrypt(election, keyPair, tally, 4);
+
+        assertThat(parallel.decryptionFactors()).isEqualTo(sequential.decryptionFactors());
+        assertThat(parallel.decryptionProofs()).hasSameSizeAs(tally);
+        assertThat(CreatePartialDecryption.verify(election, keyPair, tally, parallel)).isTrue();
+    }
+
+    @Test
+    public void shouldVerifyDecryptionOfCiphertextOutsideSubgroup() throws Exception {
+        var dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+        var fixture = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var group = fixture.publicKey().group();
+        var p = group.p();
+        var keyPair = GenTrusteeKey.genKeyPair(group);
+        var election = fixture.withPublicKey(WrappedPublicKey.builder()
+            .group(group)
+            .y(keyPair.trusteePublicKey().publicKey())
+            .build());
+
+        for (int i = 0; i < 20; i++) {
+            var alpha = p.subtract(BigInteger.ONE).multiply(group.g().modPow(GenRandomInteger.run(group.q()), p)).mod(p);
+            var ct = Ciphertext.builder().alpha(alpha).beta(BigInteger.ONE).build();
+            var tally = List.of(List.of(ct));
+            var decryption = CreatePartialDecryption.decrypt(election, keyPair, tally);
+            assertThat(CreatePartialDecryption.verify(election, keyPair, tally, decryption)).isTrue();
+            assertThat(new VerifyPartialDecryption(group, tally)
+                .verify(keyPair.trusteePublicKey().publicKey(), decryption, 1)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.omadac.vote.belenios.model.Election;
+
+public class RevoteIndexTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldKeepNewestBallotPerCredential() {
+        var index = new RevoteIndex(2);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(index.put(BigInteger.valueOf(i), i)).isEqualTo(-1);
+        }
+        assertThat(index.put(BigInteger.valueOf(17), 5000)).isEqualTo(17);
+        assertThat(index.put(BigInteger.valueOf(17), 5001)).isEqualTo(5000);
+        assertThat(index.put(BigInteger.valueOf(42), 5002)).isEqualTo(42);
+
+        assertThat(index.size()).isEqualTo(5000);
+        assertThat(index.numBallots()).isEqualTo(5003);
+        assertThat(index.numSuperseded()).isEqualTo(3);
+        assertThat(index.ordinal(BigInteger.valueOf(17))).isEqualTo(5001);
+        assertThat(index.ordinal(BigInteger.valueOf(5000))).isEqualTo(-1);
+        assertThat(index.isLatest(BigInteger.valueOf(42), 42)).isFalse();
+        assertThat(index.isLatest(BigInteger.valueOf(43), 43)).isTrue();
+
+        var latest = index.latestOrdinals();
+        assertThat(latest).hasSize(5000).isSorted().doesNotContain(17, 42, 5000).contains(5001, 5002);
+    }
+
+    @Test
+    public void shouldTallyNewestBallots() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        TallyAccumulator expected;
+        try (InputStream in = Files.newInputStream(dir.resolve("ballots.jsons"))) {
+            expected = CreateEncryptedTally.tallyWeighted(election, in, publicCred -> 1);
+        }
+
+        // submit the first two ballots again
+        var jsonFile = tempDir.resolve("ballots.jsons");
+        List<String> lines = Files.readAllLines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8);
+        Files.write(jsonFile, lines, StandardCharsets.UTF_8);
+        Files.write(jsonFile, lines.subList(0, 2), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        var binaryFile = tempDir.resolve("ballots.bin");
+        BallotFiles.toBinary(election, jsonFile, binaryFile);
+
+        for (var ballotsFile: List.of(jsonFile, binaryFile)) {
+            var revotes = RevoteIndex.build(ballotsFile);
+            assertThat(revotes.numBallots()).isEqualTo(7);
+            assertThat(revotes.numSuperseded()).isEqualTo(2);
+            assertThat(revotes.latestOrdinals()).containsExactly(2, 3, 4, 5, 6);
+
+            for (int threads: new int[] {1, 3}) {
+                var tally = ParallelTally.tallyLatest(election, ballotsFile, publicCred -> 1, revotes, threads);
+                assertThat(tally.numBallots()).isEqualTo(5);
+                assertThat(tally.snapshot()).isEqualTo(expected.snapshot());
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.omadac.vote.belenios.algo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TranscriptTest {
+
+    private BigInteger q = Groups.HOMOMORPHIC.q();
+
+    @Test
+    public void shouldMatchFormattedMessage() {
+        var y = Groups.HOMOMORPHIC.p().subtract(BigInteger.TWO);
+        var a = BigInteger.TEN.pow(617);
+        var b = BigInteger.ZERO;
+        var expected = ModularChecksum.checksum(String.format("decrypt|%s|%s,%s", y, a, b), q);
+        var actual = Transcript.start("decrypt").section().add(y).section().add(a).add(b).checksum(q);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldWriteDecimalDigits() {
+        var random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            var value = new BigInteger(random.nextInt(4200), random);
+            if (i % 3 == 0) {
+                value = value.negate();
+            }
+            if (i % 5 == 0) {
+                value = value.multiply(BigInteger.TEN.pow(random.nextInt(30)));
+            }
+            var expected = ModularChecksum.checksum("pok|" + value + "|x", q);
+            var actual = Transcript.start("pok").section().add(value).section().add("x").checksum(q);
+            assertThat(actual).as("value %s", value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void shouldHashMessagesLargerThanBuffer() {
+        var p = Groups.HOMOMORPHIC.p();
+        var message = new StringBuilder("sig|1|2|");
+        var transcript = Transcript.start("sig").section().add(BigInteger.ONE).section().add(BigInteger.TWO).section();
+        for (int i = 0; i < 40; i++) {
+            var value = p.subtract(BigInteger.valueOf(i));
+            message.append(i == 0 ? "" : ",").append(value);
+            transcript.add(value);
+        }
+        assertThat(transcript.checksum(q)).isEqualTo(ModularChecksum.checksum(message.toString(), q));
+    }
+}
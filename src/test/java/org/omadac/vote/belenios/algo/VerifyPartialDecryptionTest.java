@@ -0,0 +1,60 @@
+package org.omadac.vote.belenios.algo;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.omadac.vote.belenios.model.Ballot;
+import org.omadac.vote.belenios.model.Election;
+import org.omadac.vote.belenios.model.PartialDecryption;
+import org.omadac.vote.belenios.model.TrusteePublicKey;
+
+public class VerifyPartialDecryptionTest {
+
+    private Path dir = Paths.get("src/test/resources/4BmyrdywTpwJry");
+
+    @Test
+    public void shouldMatchTrustees() throws Exception {
+        var election = JsonMapper.fromJson(dir.resolve("election.json").toFile(), Election.class);
+        var ballots = Files.lines(dir.resolve("ballots.jsons"), StandardCharsets.UTF_8)
+            .map(json -> JsonMapper.fromJson(json, Ballot.class));
+        var tally = CreateEncryptedTally.tally(election, ballots);
+        List<PartialDecryption> decryptions = Files.lines(dir.resolve("partial_decryptions.jsons"))
+            .map(json -> JsonMapper.fromJson(json, PartialDecryption.class))
+            .collect(toList());
+        List<BigInteger> trusteeKeys = Trustees.readTrustees(new File(dir.toFile(), "trustees.json")).stream()
+            .map(TrusteePublicKey::publicKey)
+            .collect(toList());
+
+        var verifier = new VerifyPartialDecryption(election.publicKey().group(), tally);
+        var matches = verifier.match(trusteeKeys, decryptions, 2);
+        assertThat(matches).containsExactlyInAnyOrder(0, 1, 2);
+        for (int d = 0; d < decryptions.size(); d++) {
+            assertThat(verifier.verify(trusteeKeys.get(matches[d]), decryptions.get(d), 2)).isTrue();
+        }
+
+        var first = decryptions.get(0);
+        List<List<BigInteger>> factors = new ArrayList<>(first.decryptionFactors());
+        var lastQuestion = new ArrayList<>(factors.get(factors.size() - 1));
+        lastQuestion.set(lastQuestion.size() - 1, lastQuestion.get(lastQuestion.size() - 1).add(BigInteger.ONE));
+        factors.set(factors.size() - 1, lastQuestion);
+        var tampered = first.withDecryptionFactors(factors);
+
+        assertThat(verifier.verify(trusteeKeys.get(matches[0]), tampered, 2)).isFalse();
+        assertThat(verifier.match(trusteeKeys, List.of(tampered), 2)).containsExactly(-1);
+
+        var p = election.publicKey().group().p();
+        var outOfGroup = p.subtract(trusteeKeys.get(matches[0]));
+        assertThat(verifier.verify(outOfGroup, first, 2)).isFalse();
+        assertThat(verifier.match(List.of(outOfGroup), List.of(first), 2)).containsExactly(-1);
+    }
+}